@@ -0,0 +1,124 @@
+package org.pharmacy.api.security;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pharmacy.api.model.User;
+import org.pharmacy.api.repository.UserRepository;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cost of authenticating one request: {@link JwtTokenProvider#verify} alone and the whole
+ * {@link JwtAuthenticationFilter}, each with the verified-token cache hit and missed. The miss
+ * variants rotate through more distinct tokens than their one-entry cache holds, so every call pays
+ * for the digest, the HS512 check and the claims parse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET =
+            "MySecretKeyForJWTTokenGenerationPharmacyAPISecureKey2024WithMinimum512BitsForHS512Algorithm";
+    private static final int USERS = 1024;
+
+    private final FilterChain chain = (request, response) -> { };
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private JwtTokenProvider cachingProvider;
+    private JwtTokenProvider missingProvider;
+    private JwtAuthenticationFilter cachingFilter;
+    private JwtAuthenticationFilter missingFilter;
+    private String[] tokens;
+    private MockHttpServletRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cachingProvider = provider(10_000);
+        missingProvider = provider(1);
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenVersionById(anyLong())).thenReturn(Optional.of(0));
+        cachingFilter = filter(cachingProvider, userRepository);
+        missingFilter = filter(missingProvider, userRepository);
+
+        tokens = new String[USERS];
+        requests = new MockHttpServletRequest[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setEmail("user" + i + "@example.com");
+            user.setRole(User.UserRole.CUSTOMER);
+            tokens[i] = cachingProvider.generateToken(user);
+            requests[i] = new MockHttpServletRequest("GET", "/api/orders");
+            requests[i].addHeader("Authorization", "Bearer " + tokens[i]);
+        }
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return cachingProvider.verify(tokens[0]);
+    }
+
+    @Benchmark
+    public Claims verifyUncached() {
+        return missingProvider.verify(tokens[next++ & (USERS - 1)]);
+    }
+
+    @Benchmark
+    public Object filterCached() throws Exception {
+        cachingFilter.doFilter(requests[0], response, chain);
+        return authenticated();
+    }
+
+    @Benchmark
+    public Object filterUncached() throws Exception {
+        missingFilter.doFilter(requests[next++ & (USERS - 1)], response, chain);
+        return authenticated();
+    }
+
+    private static Object authenticated() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    private static JwtTokenProvider provider(int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(provider, "cacheSize", cacheSize);
+        provider.init();
+        return provider;
+    }
+
+    private static JwtAuthenticationFilter filter(JwtTokenProvider provider, UserRepository userRepository) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(provider, new PrincipalCache(userRepository),
+                new TokenVersions(userRepository));
+        ReflectionTestUtils.setField(filter, "claimsOnly", true);
+        return filter;
+    }
+}
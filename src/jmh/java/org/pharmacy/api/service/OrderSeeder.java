@@ -0,0 +1,40 @@
+package org.pharmacy.api.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Bulk-inserts synthetic orders, one line each, straight into H2 so millions of rows take seconds.
+ * Statuses cycle through every {@link org.pharmacy.api.model.Order.OrderStatus} and creation times
+ * go back one minute per order.
+ */
+final class OrderSeeder {
+
+    private static final int BATCH = 500_000;
+
+    private OrderSeeder() {
+    }
+
+    /**
+     * Add {@code count} orders for the default customer, then reload the fact store so reports see them.
+     */
+    static void seed(JdbcTemplate jdbcTemplate, OrderFactStore orderFactStore, int count) {
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'customer@example.com'", Long.class);
+        Long productId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM products", Long.class);
+
+        for (int from = 0; from < count; from += BATCH) {
+            int size = Math.min(BATCH, count - from);
+            Long lastOrderId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM orders", Long.class);
+            jdbcTemplate.update("INSERT INTO orders (user_id, status, total_amount, shipping_address, payment_method, "
+                    + "created_at, updated_at) "
+                    + "SELECT ?, CASE MOD(X, 6) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'CONFIRMED' WHEN 2 THEN 'PROCESSING' "
+                    + "WHEN 3 THEN 'SHIPPED' WHEN 4 THEN 'DELIVERED' ELSE 'CANCELLED' END, 20.0, '1 Benchmark St', 'CARD', "
+                    + "DATEADD(MINUTE, -(X + ?), LOCALTIMESTAMP), LOCALTIMESTAMP FROM SYSTEM_RANGE(1, ?)",
+                    userId, from, size);
+            jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, quantity, price, subtotal) "
+                    + "SELECT id, ?, 2, 10.0, 20.0 FROM orders WHERE id > ?", productId, lastOrderId);
+        }
+
+        // Rows already in the store are skipped
+        orderFactStore.load();
+    }
+}
@@ -0,0 +1,74 @@
+package org.pharmacy.api.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pharmacy.api.PharmacyApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and allocation of the analytics reports against the full application on H2, from 1k to
+ * 5M orders. Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is the heap allocated per report.
+ *
+ * The inventory and users reports aggregate the product and user tables, so order volume must not
+ * show up in either number. The sales report scans the order fact store's primitive columns: its
+ * allocation stays flat while its latency grows with one array pass over the orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ReportBenchmark {
+
+    @Param({"1000", "100000", "1000000", "5000000"})
+    private int orders;
+
+    private ConfigurableApplicationContext context;
+    private AnalyticsService analyticsService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(PharmacyApiApplication.class)
+                .properties("server.port=0", "spring.jpa.show-sql=false", "spring.h2.console.enabled=false")
+                .run();
+        OrderSeeder.seed(context.getBean(JdbcTemplate.class), context.getBean(OrderFactStore.class), orders);
+        analyticsService = context.getBean(AnalyticsService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> salesReport() {
+        return analyticsService.getSalesReport();
+    }
+
+    @Benchmark
+    public Map<String, Object> inventoryReport() {
+        return analyticsService.getInventoryReport();
+    }
+
+    @Benchmark
+    public Map<String, Object> usersReport() {
+        return analyticsService.getUsersReport();
+    }
+}
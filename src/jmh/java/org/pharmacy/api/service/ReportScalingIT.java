@@ -0,0 +1,79 @@
+package org.pharmacy.api.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The analytics reports must not load orders into the heap: the heap allocated per report stays
+ * the same from 1k to 200k orders, and no entity is loaded to build one. Latency at larger volumes
+ * is measured by {@link ReportBenchmark}.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class ReportScalingIT {
+
+    private static final int CALLS = 200;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private OrderFactStore orderFactStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void reportAllocationStaysFlatAsOrdersGrow() {
+        OrderSeeder.seed(jdbcTemplate, orderFactStore, 1_000);
+        long small = bytesPerReport();
+
+        OrderSeeder.seed(jdbcTemplate, orderFactStore, 199_000);
+        long large = bytesPerReport();
+
+        System.out.println("📏 Reports allocate " + small + " bytes at 1k orders, " + large + " at 200k");
+        // Allowance for JIT and plan cache noise, far below one object per order
+        assertTrue(large <= small + small / 5 + 16_384, large + " bytes at 200k orders vs " + small + " at 1k");
+    }
+
+    private long bytesPerReport() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < CALLS; i++) {
+            runReports();
+        }
+
+        statistics.clear();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CALLS; i++) {
+            runReports();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        return allocated / CALLS;
+    }
+
+    private void runReports() {
+        analyticsService.getSalesReport();
+        analyticsService.getInventoryReport();
+        analyticsService.getUsersReport();
+    }
+}
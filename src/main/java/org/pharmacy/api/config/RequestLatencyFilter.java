@@ -0,0 +1,44 @@
+package org.pharmacy.api.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.service.QuantileTracker;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Records how long each API request takes into the request latency sketch.
+ *
+ * Streamed exports, notification streams, logins and registrations return from the filter chain once their work has been
+ * handed to another thread, so for those only the time to hand it off is recorded; password hashing
+ * has its own distributions.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestLatencyFilter extends OncePerRequestFilter {
+
+    private final QuantileTracker quantileTracker;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // The servlet path leaves out the context path
+        return !request.getServletPath().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            quantileTracker.recordLatency(System.nanoTime() - start);
+        }
+    }
+}
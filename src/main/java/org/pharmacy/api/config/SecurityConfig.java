@@ -6,7 +6,9 @@
  */
 package org.pharmacy.api.config;
 
+import jakarta.servlet.DispatcherType;
 import org.pharmacy.api.security.JwtAuthenticationFilter;
+import org.pharmacy.api.security.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +27,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -32,6 +35,9 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches finish a request (an export or notification stream) that was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public endpoints
                         .requestMatchers("/api/auth/register", "/api/auth/login").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
@@ -43,7 +49,7 @@ public class SecurityConfig {
 
                         // Public product endpoints
                         .requestMatchers(HttpMethod.GET, "/api/products/**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/search").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/search", "/api/search/suggest").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/reviews/**").permitAll()
 
                         // Admin only endpoints
@@ -55,12 +61,15 @@ public class SecurityConfig {
                         // Pharmacist endpoints
                         .requestMatchers("/api/prescriptions/*/approve").hasAnyRole("PHARMACIST", "ADMIN")
                         .requestMatchers("/api/prescriptions/*/reject").hasAnyRole("PHARMACIST", "ADMIN")
+                        .requestMatchers("/api/notifications/stream/stats").hasAnyRole("PHARMACIST", "ADMIN")
 
                         // All other endpoints require authentication
                         .anyRequest().authenticated()
                 )
                 .headers(headers -> headers.frameOptions(frame -> frame.disable()))
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Limits per user need the principal, so this runs after authentication
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
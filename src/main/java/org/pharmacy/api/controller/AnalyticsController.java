@@ -10,13 +10,29 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.pharmacy.api.dto.ApiResponse;
+import org.pharmacy.api.dto.SalesBucket;
+import org.pharmacy.api.dto.TopProduct;
 import org.pharmacy.api.service.AnalyticsService;
+import org.pharmacy.api.service.DistinctCountTracker;
+import org.pharmacy.api.service.ParallelReportEngine;
+import org.pharmacy.api.service.PasswordHasher;
+import org.pharmacy.api.service.QuantileTracker;
+import org.pharmacy.api.service.SalesRollupService;
+import org.pharmacy.api.service.TopProductsTracker;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -26,6 +42,12 @@ import java.util.Map;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final SalesRollupService salesRollupService;
+    private final QuantileTracker quantileTracker;
+    private final TopProductsTracker topProductsTracker;
+    private final DistinctCountTracker distinctCountTracker;
+    private final ParallelReportEngine parallelReportEngine;
+    private final PasswordHasher passwordHasher;
 
     @GetMapping("/sales")
     @Operation(summary = "Get sales report", description = "Retrieve sales analytics and revenue data")
@@ -35,6 +57,67 @@ public class AnalyticsController {
         return ResponseEntity.ok(ApiResponse.success(report));
     }
 
+    @GetMapping("/sales/series")
+    @Operation(summary = "Get sales time series", description = "Order count, revenue and smallest/largest amount per hour, day or week for orders that entered a status (DELIVERED by default), optionally for one product category; from and to are inclusive dates, defaulting to the last 30 days")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<List<SalesBucket>>> getSalesSeries(
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DELIVERED") String status,
+            @RequestParam(required = false) String category) {
+        List<SalesBucket> series = salesRollupService.series(granularity, status, category, from, to);
+        return ResponseEntity.ok(ApiResponse.success(series));
+    }
+
+    @GetMapping("/sales/sketches")
+    @Operation(summary = "Export quantile sketches", description = "This node's order total, basket size, payment amount and request latency sketches, base64 encoded, for merging on another node")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<Map<String, String>>> exportSketches() {
+        return ResponseEntity.ok(ApiResponse.success(quantileTracker.export()));
+    }
+
+    @PostMapping("/sales/percentiles")
+    @Operation(summary = "Get cluster percentiles", description = "p50/p90/p99 of this node's sketches merged with the sketches exported by other nodes")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getMergedPercentiles(
+            @RequestBody List<Map<String, String>> peers) {
+        Map<String, Object> percentiles = quantileTracker.mergedPercentiles(peers);
+        return ResponseEntity.ok(ApiResponse.success(percentiles));
+    }
+
+    @GetMapping("/sales/adhoc")
+    @Operation(summary = "Run ad-hoc sales report", description = "Orders, units and revenue by status and category for order lines created between from and to (inclusive, default the last 30 days), optionally for one category; scanned in parallel under a time budget. Pass a reportId to be able to cancel it")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getAdhocSalesReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String reportId) {
+        Map<String, Object> report = parallelReportEngine.salesReport(from, to, category, reportId);
+        return ResponseEntity.ok(ApiResponse.success(report));
+    }
+
+    @DeleteMapping("/sales/adhoc/{reportId}")
+    @Operation(summary = "Cancel ad-hoc sales report", description = "Stop a running ad-hoc report started with this reportId")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<Void>> cancelAdhocSalesReport(@PathVariable String reportId) {
+        if (!parallelReportEngine.cancel(reportId)) {
+            throw new RuntimeException("No running report with id: " + reportId);
+        }
+        return ResponseEntity.ok(ApiResponse.success("Report cancelled", null));
+    }
+
+    @GetMapping("/top-products")
+    @Operation(summary = "Get best-selling products", description = "Products with the most units ordered over the last 1h, 24h or 7d; unit counts are streaming estimates that may slightly overcount")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<List<TopProduct>>> getTopProducts(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<TopProduct> products = topProductsTracker.top(window, limit);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
     @GetMapping("/inventory")
     @Operation(summary = "Get inventory report", description = "Retrieve inventory statistics and stock analysis")
     @SecurityRequirement(name = "Bearer Authentication")
@@ -50,4 +133,27 @@ public class AnalyticsController {
         Map<String, Object> report = analyticsService.getUsersReport();
         return ResponseEntity.ok(ApiResponse.success(report));
     }
+
+    @GetMapping("/auth/hashing")
+    @Operation(summary = "Get password hashing stats", description = "Queue depth, pool usage, rejections and queue/hash time percentiles of the password hashing pool")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getHashingStats() {
+        return ResponseEntity.ok(ApiResponse.success(passwordHasher.stats()));
+    }
+
+    @GetMapping("/users/sketches")
+    @Operation(summary = "Export distinct count sketches", description = "This node's per-day active user, purchaser and products-per-category sketches, base64 encoded, for merging on another node")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<Map<String, Map<String, String>>>> exportDistinctSketches() {
+        return ResponseEntity.ok(ApiResponse.success(distinctCountTracker.export()));
+    }
+
+    @PostMapping("/users/distinct")
+    @Operation(summary = "Get cluster distinct counts", description = "Daily/monthly active users and purchasers and distinct products sold per category, over this node's sketches merged with the sketches exported by other nodes")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getMergedDistinctCounts(
+            @RequestBody List<Map<String, Map<String, String>>> peers) {
+        Map<String, Object> counts = distinctCountTracker.mergedCounts(peers);
+        return ResponseEntity.ok(ApiResponse.success(counts));
+    }
 }
@@ -18,6 +18,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -28,16 +30,18 @@ public class AuthController {
 
     @PostMapping("/register")
     @Operation(summary = "Register new user", description = "Create a new user account")
-    public ResponseEntity<ApiResponse<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
-        AuthResponse response = authService.register(request);
-        return ResponseEntity.ok(ApiResponse.success("Registration successful", response));
+    public CompletableFuture<ResponseEntity<ApiResponse<AuthResponse>>> register(
+            @Valid @RequestBody RegisterRequest request) {
+        // The request thread is released while the password is hashed
+        return authService.register(request)
+                .thenApply(response -> ResponseEntity.ok(ApiResponse.success("Registration successful", response)));
     }
 
     @PostMapping("/login")
     @Operation(summary = "User login", description = "Authenticate and receive JWT token")
-    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
-        AuthResponse response = authService.login(request);
-        return ResponseEntity.ok(ApiResponse.success("Login successful", response));
+    public CompletableFuture<ResponseEntity<ApiResponse<AuthResponse>>> login(@Valid @RequestBody LoginRequest request) {
+        return authService.login(request)
+                .thenApply(response -> ResponseEntity.ok(ApiResponse.success("Login successful", response)));
     }
 
     @PostMapping("/logout")
@@ -59,10 +63,11 @@ public class AuthController {
     @PutMapping("/update")
     @Operation(summary = "Update profile", description = "Update user profile and/or password")
     @SecurityRequirement(name = "Bearer Authentication")
-    public ResponseEntity<ApiResponse<User>> updateProfile(
+    public CompletableFuture<ResponseEntity<ApiResponse<User>>> updateProfile(
             Authentication authentication,
             @Valid @RequestBody UpdateProfileRequest request) {
-        User user = authService.updateProfile(authentication.getName(), request);
-        return ResponseEntity.ok(ApiResponse.success("Profile updated successfully", user));
+        // The request thread is released while a password change is hashed
+        return authService.updateProfile(authentication.getName(), request)
+                .thenApply(user -> ResponseEntity.ok(ApiResponse.success("Profile updated successfully", user)));
     }
 }
@@ -13,7 +13,7 @@ import org.pharmacy.api.dto.ApiResponse;
 import org.pharmacy.api.dto.ChatMessageRequest;
 import org.pharmacy.api.dto.ChatMessageResponse;
 import org.pharmacy.api.model.User;
-import org.pharmacy.api.repository.UserRepository;
+import org.pharmacy.api.security.UserPrincipal;
 import org.pharmacy.api.service.ChatService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -28,7 +28,6 @@ import java.util.List;
 public class ChatController {
 
     private final ChatService chatService;
-    private final UserRepository userRepository;
 
     @PostMapping("/send")
     @Operation(summary = "Send chat message", description = "Send a message to another user")
@@ -47,11 +46,8 @@ public class ChatController {
             @PathVariable Long otherUserId,
             Authentication authentication) {
 
-        // Get current user from email
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<ChatMessageResponse> messages = chatService.getConversation(currentUser.getId(), otherUserId);
+        Long currentUserId = UserPrincipal.of(authentication).getId();
+        List<ChatMessageResponse> messages = chatService.getConversation(currentUserId, otherUserId);
         return ResponseEntity.ok(ApiResponse.success(messages));
     }
 
@@ -59,11 +55,7 @@ public class ChatController {
     @Operation(summary = "Get pharmacist for chat", description = "Get available pharmacist/admin for chat")
     @SecurityRequirement(name = "Bearer Authentication")
     public ResponseEntity<ApiResponse<User>> getPharmacist(Authentication authentication) {
-        // Get current user from email
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        User pharmacist = chatService.findPharmacistOrAdmin(currentUser.getId());
+        User pharmacist = chatService.findPharmacistOrAdmin(UserPrincipal.of(authentication).getId());
         return ResponseEntity.ok(ApiResponse.success(pharmacist));
     }
 
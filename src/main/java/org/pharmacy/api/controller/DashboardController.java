@@ -10,6 +10,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.pharmacy.api.dto.ApiResponse;
+import org.pharmacy.api.security.UserPrincipal;
 import org.pharmacy.api.service.DashboardService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -30,7 +31,8 @@ public class DashboardController {
     @Operation(summary = "Get dashboard statistics", description = "Get role-based dashboard statistics")
     @SecurityRequirement(name = "Bearer Authentication")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getDashboardStats(Authentication authentication) {
-        Map<String, Object> stats = dashboardService.getDashboardStats(authentication.getName());
+        UserPrincipal principal = UserPrincipal.of(authentication);
+        Map<String, Object> stats = dashboardService.getDashboardStats(principal.getId(), principal.getRole());
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
 
@@ -0,0 +1,57 @@
+package org.pharmacy.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.service.ExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/reports/export")
+@RequiredArgsConstructor
+@Tag(name = "9. Analytics", description = "Reports and analytics (Admin/Pharmacist only)")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/orders")
+    @Operation(summary = "Export orders", description = "Stream every order with its lines as NDJSON, or one CSV row per order line")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        return attachment("orders", exportFormat, out -> exportService.exportOrders(out, exportFormat));
+    }
+
+    @GetMapping("/products")
+    @Operation(summary = "Export products", description = "Stream the full product catalog as NDJSON or CSV")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        return attachment("products", exportFormat, out -> exportService.exportProducts(out, exportFormat));
+    }
+
+    @GetMapping("/payments")
+    @Operation(summary = "Export payments", description = "Stream every payment as NDJSON or CSV")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<StreamingResponseBody> exportPayments(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        return attachment("payments", exportFormat, out -> exportService.exportPayments(out, exportFormat));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(String name, ExportService.Format format,
+                                                                    StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+}
@@ -10,11 +10,17 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.pharmacy.api.dto.ApiResponse;
+import org.pharmacy.api.dto.CursorPage;
 import org.pharmacy.api.model.Notification;
+import org.pharmacy.api.security.UserPrincipal;
 import org.pharmacy.api.service.NotificationService;
+import org.pharmacy.api.service.NotificationStream;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.List;
 import java.util.Map;
 
@@ -25,21 +31,44 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStream notificationStream;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream notifications", description = "Server-Sent Events stream of the current user's new notifications, with periodic heartbeats")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public SseEmitter streamNotifications(Authentication authentication) {
+        return notificationStream.subscribe(UserPrincipal.of(authentication).getId());
+    }
+
+    @GetMapping("/stream/stats")
+    @Operation(summary = "Get notification stream stats", description = "Open notification streams and subscribed users, push queue depth, and pushed, dropped and disconnected counts")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getStreamStats() {
+        return ResponseEntity.ok(ApiResponse.success(notificationStream.stats()));
+    }
 
     @GetMapping("/{userId}")
     @Operation(summary = "Get user notifications", description = "Retrieve all notifications for a user")
     @SecurityRequirement(name = "Bearer Authentication")
-    public ResponseEntity<ApiResponse<List<Notification>>> getUserNotifications(@PathVariable Long userId) {
-        List<Notification> notifications = notificationService.getUserNotifications(userId);
-        return ResponseEntity.ok(ApiResponse.success(notifications));
+    public ResponseEntity<ApiResponse<List<Notification>>> getUserNotifications(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        CursorPage<Notification> notifications =
+                notificationService.getUserNotifications(userId, cursor, CursorPage.checkLimit(limit));
+        return ResponseEntity.ok(ApiResponse.page(notifications));
     }
 
     @GetMapping("/{userId}/unread")
     @Operation(summary = "Get unread notifications", description = "Retrieve unread notifications for a user")
     @SecurityRequirement(name = "Bearer Authentication")
-    public ResponseEntity<ApiResponse<List<Notification>>> getUnreadNotifications(@PathVariable Long userId) {
-        List<Notification> notifications = notificationService.getUnreadNotifications(userId);
-        return ResponseEntity.ok(ApiResponse.success(notifications));
+    public ResponseEntity<ApiResponse<List<Notification>>> getUnreadNotifications(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        CursorPage<Notification> notifications =
+                notificationService.getUnreadNotifications(userId, cursor, CursorPage.checkLimit(limit));
+        return ResponseEntity.ok(ApiResponse.page(notifications));
     }
 
     @PutMapping("/{id}/read")
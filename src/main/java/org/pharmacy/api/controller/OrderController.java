@@ -10,8 +10,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.pharmacy.api.dto.ApiResponse;
+import org.pharmacy.api.dto.CursorPage;
 import org.pharmacy.api.dto.OrderRequest;
 import org.pharmacy.api.dto.OrderStatusRequest;
+import org.pharmacy.api.dto.OrderSummary;
 import org.pharmacy.api.model.Order;
 import org.pharmacy.api.service.OrderService;
 import jakarta.validation.Valid;
@@ -41,18 +43,20 @@ public class OrderController {
     @Transactional(readOnly = true)
     @Operation(summary = "Get user orders", description = "Retrieve order history for a specific user")
     @SecurityRequirement(name = "Bearer Authentication")
-    public ResponseEntity<ApiResponse<List<Order>>> getUserOrders(@PathVariable Long userId) {
-        List<Order> orders = orderService.getUserOrders(userId);
+    public ResponseEntity<ApiResponse<List<OrderSummary>>> getUserOrders(@PathVariable Long userId) {
+        List<OrderSummary> orders = orderService.getUserOrders(userId);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
     @GetMapping
     @Transactional(readOnly = true)
-    @Operation(summary = "Get all orders", description = "Retrieve all orders (Admin/Pharmacist only)")
+    @Operation(summary = "Get all orders", description = "Retrieve orders newest first, one page at a time (Admin/Pharmacist only)")
     @SecurityRequirement(name = "Bearer Authentication")
-    public ResponseEntity<ApiResponse<List<Order>>> getAllOrders() {
-        List<Order> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(ApiResponse.success(orders));
+    public ResponseEntity<ApiResponse<List<OrderSummary>>> getAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        CursorPage<OrderSummary> orders = orderService.getOrders(cursor, CursorPage.checkLimit(limit));
+        return ResponseEntity.ok(ApiResponse.page(orders));
     }
 
     @PutMapping("/{id}/status")
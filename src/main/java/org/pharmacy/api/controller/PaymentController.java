@@ -10,6 +10,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.pharmacy.api.dto.ApiResponse;
+import org.pharmacy.api.dto.PaymentHistoryItem;
 import org.pharmacy.api.dto.PaymentRequest;
 import org.pharmacy.api.dto.PaymentVerificationRequest;
 import org.pharmacy.api.model.Payment;
@@ -46,8 +47,8 @@ public class PaymentController {
     @GetMapping("/history")
     @Operation(summary = "Get payment history", description = "Retrieve payment history for a user")
     @SecurityRequirement(name = "Bearer Authentication")
-    public ResponseEntity<ApiResponse<List<Payment>>> getPaymentHistory(@RequestParam Long userId) {
-        List<Payment> payments = paymentService.getPaymentHistory(userId);
+    public ResponseEntity<ApiResponse<List<PaymentHistoryItem>>> getPaymentHistory(@RequestParam Long userId) {
+        List<PaymentHistoryItem> payments = paymentService.getPaymentHistory(userId);
         return ResponseEntity.ok(ApiResponse.success(payments));
     }
 }
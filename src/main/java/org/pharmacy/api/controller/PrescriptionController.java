@@ -4,10 +4,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.pharmacy.api.dto.ApiResponse;
+import org.pharmacy.api.dto.CursorPage;
+import org.pharmacy.api.dto.PageCursor;
+import org.pharmacy.api.dto.PrescriptionQueueRow;
 import org.pharmacy.api.model.Prescription;
 import org.pharmacy.api.repository.PrescriptionRepository;  // ← ADD THIS IMPORT
 import org.pharmacy.api.service.PrescriptionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.transaction.annotation.Transactional;
@@ -73,18 +77,25 @@ public class PrescriptionController {
     @GetMapping("/pending")
     @Operation(summary = "Get pending prescriptions", description = "Retrieve all pending prescriptions (Pharmacist/Admin only)")
     @SecurityRequirement(name = "Bearer Authentication")
-    public ResponseEntity<ApiResponse<List<Prescription>>> getPendingPrescriptions() {
-        List<Prescription> prescriptions = prescriptionService.getPendingPrescriptions();
+    public ResponseEntity<ApiResponse<List<PrescriptionQueueRow>>> getPendingPrescriptions() {
+        List<PrescriptionQueueRow> prescriptions = prescriptionService.getPendingPrescriptions();
         return ResponseEntity.ok(ApiResponse.success(prescriptions));
     }
 
     @GetMapping
     @Transactional(readOnly = true)
-    @Operation(summary = "Get all prescriptions", description = "Retrieve all prescriptions (Admin/Pharmacist only)")
+    @Operation(summary = "Get all prescriptions", description = "Retrieve prescriptions newest first, one page at a time (Admin/Pharmacist only)")
     @SecurityRequirement(name = "Bearer Authentication")
-    public ResponseEntity<ApiResponse<List<Prescription>>> getAllPrescriptions() {
-        List<Prescription> prescriptions = prescriptionRepository.findAll();
-        return ResponseEntity.ok(ApiResponse.success(prescriptions));
+    public ResponseEntity<ApiResponse<List<Prescription>>> getAllPrescriptions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        CursorPage.checkLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        List<Prescription> rows = after == null
+                ? prescriptionRepository.findFirstPage(Limit.of(limit + 1))
+                : prescriptionRepository.findPageAfter(after.getCreatedAt(), after.getId(), Limit.of(limit + 1));
+        CursorPage<Prescription> prescriptions = CursorPage.of(rows, limit, Prescription::getUploadedAt, Prescription::getId);
+        return ResponseEntity.ok(ApiResponse.page(prescriptions));
     }
 
     @GetMapping("/user/{userId}")
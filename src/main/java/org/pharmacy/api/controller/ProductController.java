@@ -10,15 +10,22 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.pharmacy.api.dto.ApiResponse;
+import org.pharmacy.api.dto.CursorPage;
+import org.pharmacy.api.dto.ProductCard;
+import org.pharmacy.api.dto.ProductFacetResponse;
 import org.pharmacy.api.dto.ProductRequest;
+import org.pharmacy.api.dto.ProductSuggestion;
 import org.pharmacy.api.dto.StockUpdateRequest;
 import org.pharmacy.api.model.Product;
+import org.pharmacy.api.service.ProductFacetIndex;
 import org.pharmacy.api.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -29,10 +36,39 @@ public class ProductController {
     private final ProductService productService;
 
     @GetMapping("/products")
-    @Operation(summary = "Get all products", description = "Retrieve list of all medicines/products")
-    public ResponseEntity<ApiResponse<List<Product>>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(ApiResponse.success(products));
+    @Operation(summary = "Get all products", description = "Retrieve medicines/products newest first, one page at a time; pass nextCursor back as cursor for the next page")
+    public ResponseEntity<ApiResponse<List<ProductCard>>> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        CursorPage<ProductCard> products = productService.getProducts(cursor, CursorPage.checkLimit(limit));
+        return ResponseEntity.ok(ApiResponse.page(products));
+    }
+
+    @GetMapping("/products/facets")
+    @Operation(summary = "Browse products by facets", description = "Filter by category, brand, prescription requirement, stock and price range; values within a facet are OR-ed, facets are AND-ed, and every facet value comes with a live count")
+    public ResponseEntity<ApiResponse<ProductFacetResponse>> browseProducts(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) Boolean prescriptionRequired,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) List<String> price,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (page < 0 || size < 1 || size > 200) {
+            throw new RuntimeException("Page must be 0 or more and size between 1 and 200");
+        }
+
+        Map<String, List<String>> selections = new HashMap<>();
+        selections.put(ProductFacetIndex.CATEGORY, category);
+        selections.put(ProductFacetIndex.BRAND, brand);
+        selections.put(ProductFacetIndex.PRESCRIPTION_REQUIRED,
+                prescriptionRequired != null ? List.of(prescriptionRequired.toString()) : null);
+        selections.put(ProductFacetIndex.IN_STOCK, inStock != null ? List.of(inStock.toString()) : null);
+        selections.put(ProductFacetIndex.PRICE, price);
+
+        ProductFacetResponse response = productService.browseProducts(selections, page, size);
+        return ResponseEntity.ok(ApiResponse.success(response));
     }
 
     @GetMapping("/products/{id}")
@@ -85,22 +121,32 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Search products", description = "Search and filter products by name, category, or prescription requirement")
-    public ResponseEntity<ApiResponse<List<Product>>> searchProducts(
+    @Operation(summary = "Search products", description = "Search name, brand, category and description with prefix matching and relevance ranking, or filter by prescription requirement")
+    public ResponseEntity<ApiResponse<List<ProductCard>>> searchProducts(
             @RequestParam(required = false) String query,
-            @RequestParam(required = false) String filter) {
+            @RequestParam(required = false) String filter,
+            @RequestParam(defaultValue = "50") int limit) {
 
         if (query != null && !query.isEmpty()) {
-            List<Product> products = productService.searchProducts(query);
+            List<ProductCard> products = productService.searchProducts(query, CursorPage.checkLimit(limit));
             return ResponseEntity.ok(ApiResponse.success(products));
         }
 
         if ("prescription_required".equals(filter)) {
-            List<Product> products = productService.getProductsByPrescriptionRequired(true);
+            List<ProductCard> products = productService.getProductsByPrescriptionRequired(true, CursorPage.checkLimit(limit));
             return ResponseEntity.ok(ApiResponse.success(products));
         }
 
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(ApiResponse.success(products));
+        CursorPage<ProductCard> products = productService.getProducts(null, CursorPage.checkLimit(limit));
+        return ResponseEntity.ok(ApiResponse.page(products));
+    }
+
+    @GetMapping("/search/suggest")
+    @Operation(summary = "Suggest products", description = "Autocomplete product and brand names as the user types, tolerating small typos; ranked by popularity")
+    public ResponseEntity<ApiResponse<List<ProductSuggestion>>> suggestProducts(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<ProductSuggestion> suggestions = productService.suggestProducts(query, CursorPage.checkLimit(limit));
+        return ResponseEntity.ok(ApiResponse.success(suggestions));
     }
 }
@@ -10,6 +10,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.pharmacy.api.dto.ApiResponse;
+import org.pharmacy.api.dto.CursorPage;
 import org.pharmacy.api.dto.SupportTicketRequest;
 import org.pharmacy.api.model.SupportTicket;
 import org.pharmacy.api.service.SupportService;
@@ -56,11 +57,13 @@ public class SupportController {
     }
 
     @GetMapping("/tickets/all")
-    @Operation(summary = "Get all tickets", description = "Retrieve all support tickets (Admin/Pharmacist only)")
+    @Operation(summary = "Get all tickets", description = "Retrieve support tickets newest first, one page at a time (Admin/Pharmacist only)")
     @SecurityRequirement(name = "Bearer Authentication")
-    public ResponseEntity<ApiResponse<List<SupportTicket>>> getAllTickets() {
-        List<SupportTicket> tickets = supportService.getAllTickets();
-        return ResponseEntity.ok(ApiResponse.success(tickets));
+    public ResponseEntity<ApiResponse<List<SupportTicket>>> getAllTickets(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        CursorPage<SupportTicket> tickets = supportService.getTickets(cursor, CursorPage.checkLimit(limit));
+        return ResponseEntity.ok(ApiResponse.page(tickets));
     }
 
     @PutMapping("/ticket/{id}/status")
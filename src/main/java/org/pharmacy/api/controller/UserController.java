@@ -2,8 +2,15 @@ package org.pharmacy.api.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.pharmacy.api.dto.ApiResponse;
+import org.pharmacy.api.dto.CursorPage;
+import org.pharmacy.api.dto.PageCursor;
 import org.pharmacy.api.model.User;
 import org.pharmacy.api.repository.UserRepository;
+import org.pharmacy.api.security.PrincipalCache;
+import org.pharmacy.api.security.TokenVersions;
+import org.pharmacy.api.service.CustomerSummaryService;
+import org.pharmacy.api.service.MetricsLedger;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -18,12 +25,22 @@ import java.util.Map;
 public class UserController {
 
     private final UserRepository userRepository;
+    private final MetricsLedger metricsLedger;
+    private final CustomerSummaryService customerSummaryService;
+    private final PrincipalCache principalCache;
+    private final TokenVersions tokenVersions;
 
     @GetMapping
     @Transactional(readOnly = true)
-    public ResponseEntity<ApiResponse<List<User>>> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return ResponseEntity.ok(ApiResponse.success(users));
+    public ResponseEntity<ApiResponse<List<User>>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        CursorPage.checkLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        List<User> rows = after == null
+                ? userRepository.findFirstPage(Limit.of(limit + 1))
+                : userRepository.findPageAfter(after.getCreatedAt(), after.getId(), Limit.of(limit + 1));
+        return ResponseEntity.ok(ApiResponse.page(CursorPage.of(rows, limit, User::getCreatedAt, User::getId)));
     }
 
     @PutMapping("/{userId}/role")
@@ -36,10 +53,16 @@ public class UserController {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         String roleStr = request.get("role");
+        User.UserRole oldRole = user.getRole();
         user.setRole(User.UserRole.valueOf(roleStr));
         user.setUpdatedAt(LocalDateTime.now());
+        if (user.getRole() != oldRole) {
+            tokenVersions.bump(user);
+        }
 
         userRepository.save(user);
+        metricsLedger.userRoleChangedAfterCommit(oldRole, user.getRole());
+        principalCache.invalidate(user.getEmail());
 
         return ResponseEntity.ok(ApiResponse.success("Role updated successfully", user));
     }
@@ -50,6 +73,10 @@ public class UserController {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         userRepository.delete(user);
+        customerSummaryService.userDeleted(userId);
+        metricsLedger.userRoleChangedAfterCommit(user.getRole(), null);
+        principalCache.invalidate(user.getEmail());
+        tokenVersions.revoke(userId);
 
         return ResponseEntity.ok(ApiResponse.success("User deleted successfully", null));
     }
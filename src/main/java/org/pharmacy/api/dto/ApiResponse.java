@@ -6,10 +6,13 @@
  */
 package org.pharmacy.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,6 +21,14 @@ public class ApiResponse<T> {
     private String message;
     private T data;
 
+    // Only set on cursor-paged lists; absent on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public ApiResponse(boolean success, String message, T data) {
+        this(success, message, data, null);
+    }
+
     public static <T> ApiResponse<T> success(T data) {
         return new ApiResponse<>(true, "Operation successful", data);
     }
@@ -26,6 +37,10 @@ public class ApiResponse<T> {
         return new ApiResponse<>(true, message, data);
     }
 
+    public static <T> ApiResponse<List<T>> page(CursorPage<T> page) {
+        return new ApiResponse<>(true, "Operation successful", page.getItems(), page.getNextCursor());
+    }
+
     public static <T> ApiResponse<T> error(String message) {
         return new ApiResponse<>(false, message, null);
     }
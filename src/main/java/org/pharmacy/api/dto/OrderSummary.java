@@ -0,0 +1,22 @@
+package org.pharmacy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.pharmacy.api.model.Order;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+    private Long id;
+    private Long userId;
+    private String customerName;
+    private Order.OrderStatus status;
+    private Double totalAmount;
+    private String paymentMethod;
+    private Long itemCount;
+    private LocalDateTime createdAt;
+}
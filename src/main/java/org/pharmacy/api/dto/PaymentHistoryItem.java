@@ -0,0 +1,22 @@
+package org.pharmacy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.pharmacy.api.model.Payment;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentHistoryItem {
+    private Long id;
+    private Long orderId;
+    private Double amount;
+    private String paymentMethod;
+    private Payment.PaymentStatus status;
+    private String transactionId;
+    private String cardLastFourDigits;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package org.pharmacy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrescriptionQueueRow {
+    private Long id;
+    private Long userId;
+    private String customerName;
+    private String customerEmail;
+    private String fileName;
+    private String fileType;
+    private String doctorName;
+    private String notes;
+    private LocalDateTime uploadedAt;
+}
@@ -0,0 +1,22 @@
+package org.pharmacy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCard {
+    private Long id;
+    private String name;
+    private String brand;
+    private String category;
+    private Double price;
+    private String imageUrl;
+    private Boolean prescriptionRequired;
+    private Integer stockQuantity;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,19 @@
+package org.pharmacy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetResponse {
+    private long total;
+    private int page;
+    private int size;
+    private List<ProductCard> products;
+    private Map<String, Map<String, Long>> facets; // facet -> value -> matching products
+}
@@ -0,0 +1,14 @@
+package org.pharmacy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestion {
+    private String text;
+    private String type; // PRODUCT, BRAND
+    private Long productId;
+}
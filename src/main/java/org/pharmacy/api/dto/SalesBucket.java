@@ -0,0 +1,18 @@
+package org.pharmacy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesBucket {
+    private LocalDateTime start;
+    private Long orders;
+    private Double revenue;
+    private Double minAmount;
+    private Double maxAmount;
+}
@@ -0,0 +1,18 @@
+package org.pharmacy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopProduct {
+    private Long productId;
+    private String name;
+    private String brand;
+    private String category;
+    private Double price;
+    private String imageUrl;
+    private Long unitsSold;
+}
@@ -7,6 +7,7 @@
 package org.pharmacy.api.exception;
 
 import org.pharmacy.api.dto.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -34,6 +36,41 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error("Invalid email or password"));
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceUnavailable(ServiceUnavailableException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<Object>> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
+    // Failures of async handlers arrive wrapped; answer them as if they had been thrown directly
+    @ExceptionHandler(CompletionException.class)
+    public ResponseEntity<ApiResponse<Object>> handleCompletionException(CompletionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof ServiceUnavailableException unavailable) {
+            return handleServiceUnavailable(unavailable);
+        }
+        if (cause instanceof TooManyRequestsException tooManyRequests) {
+            return handleTooManyRequests(tooManyRequests);
+        }
+        if (cause instanceof BadCredentialsException badCredentials) {
+            return handleBadCredentials(badCredentials);
+        }
+        if (cause instanceof RuntimeException runtime) {
+            return handleRuntimeException(runtime);
+        }
+        return handleGenericException(ex);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationExceptions(
             MethodArgumentNotValidException ex) {
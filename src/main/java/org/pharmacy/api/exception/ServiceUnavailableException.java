@@ -0,0 +1,11 @@
+package org.pharmacy.api.exception;
+
+/**
+ * The server is too busy to take the request right now; answered with 503 so clients retry later.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,24 @@
+package org.pharmacy.api.exception;
+
+import lombok.Getter;
+
+/**
+ * The caller is over a rate limit; answered with 429 and a Retry-After header.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    public TooManyRequestsException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Whole seconds to wait, rounded up as Retry-After requires.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+}
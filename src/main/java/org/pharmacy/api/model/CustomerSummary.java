@@ -0,0 +1,86 @@
+package org.pharmacy.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of one customer's orders, prescriptions and tickets, keyed by user id.
+ *
+ * Every write that creates an order, prescription or ticket or changes its status moves these
+ * counters in the same transaction, so the customer dashboard reads one row by primary key.
+ * {@code lifetimeSpend} sums the totals of the customer's delivered orders.
+ */
+@Entity
+@Table(name = "customer_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSummary {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long pendingOrders = 0L;
+
+    @Column(nullable = false)
+    private Long confirmedOrders = 0L;
+
+    @Column(nullable = false)
+    private Long processingOrders = 0L;
+
+    @Column(nullable = false)
+    private Long shippedOrders = 0L;
+
+    @Column(nullable = false)
+    private Long deliveredOrders = 0L;
+
+    @Column(nullable = false)
+    private Long cancelledOrders = 0L;
+
+    @Column(nullable = false)
+    private Double lifetimeSpend = 0.0;
+
+    @Column(nullable = false)
+    private Long pendingPrescriptions = 0L;
+
+    @Column(nullable = false)
+    private Long approvedPrescriptions = 0L;
+
+    @Column(nullable = false)
+    private Long rejectedPrescriptions = 0L;
+
+    @Column(nullable = false)
+    private Long openTickets = 0L;
+
+    @Column(nullable = false)
+    private Long inProgressTickets = 0L;
+
+    @Column(nullable = false)
+    private Long resolvedTickets = 0L;
+
+    @Column(nullable = false)
+    private Long closedTickets = 0L;
+
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public CustomerSummary(Long userId) {
+        this.userId = userId;
+    }
+
+    public long totalOrders() {
+        return pendingOrders + confirmedOrders + processingOrders + shippedOrders + deliveredOrders + cancelledOrders;
+    }
+
+    public long totalPrescriptions() {
+        return pendingPrescriptions + approvedPrescriptions + rejectedPrescriptions;
+    }
+
+    public long totalTickets() {
+        return openTickets + inProgressTickets + resolvedTickets + closedTickets;
+    }
+}
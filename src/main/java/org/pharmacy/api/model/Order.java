@@ -17,11 +17,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"))
+@NamedEntityGraph(name = Order.WITH_ITEMS,
+        attributeNodes = @NamedAttributeNode(value = "items", subgraph = "items.product"),
+        subgraphs = @NamedSubgraph(name = "items.product", attributeNodes = @NamedAttributeNode("product")))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
+    // Lines are loaded on demand; repository methods that need them fetch them through this graph
+    public static final String WITH_ITEMS = "Order.withItems";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -30,7 +36,7 @@ public class Order {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonIgnoreProperties("order")
     private List<OrderItem> items = new ArrayList<>();
 
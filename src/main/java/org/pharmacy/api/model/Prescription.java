@@ -14,7 +14,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "prescriptions")
+@Table(name = "prescriptions", indexes = @Index(name = "idx_prescriptions_uploaded_at_id", columnList = "uploaded_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
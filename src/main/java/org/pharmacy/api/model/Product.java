@@ -14,7 +14,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_created_at_id", columnList = "created_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,6 +38,8 @@ public class Product {
 
     private Boolean prescriptionRequired = false;
 
+    // Written by InventoryReservationEngine through relative updates only, never by entity saves
+    @Column(updatable = false)
     private Integer stockQuantity = 0;
     private Integer reorderLevel = 10;
 
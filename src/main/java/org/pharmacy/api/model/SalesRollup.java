@@ -0,0 +1,52 @@
+package org.pharmacy.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated order amounts for one time bucket, one target status and one category.
+ *
+ * A row describes the orders that entered {@code status} during the bucket: how many, their summed,
+ * smallest and largest amount. Category rows only count the lines of that category;
+ * {@link #ALL_CATEGORIES} rows count whole orders.
+ */
+@Entity
+@Table(name = "sales_rollups", uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollups_bucket",
+        columnNames = {"granularity", "bucket_start", "status", "category"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollup {
+    public static final String ALL_CATEGORIES = "*";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Granularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.OrderStatus status;
+
+    @Column(nullable = false)
+    private String category;
+
+    private Long orderCount;
+    private Double amount;
+    private Double minAmount;
+    private Double maxAmount;
+
+    public enum Granularity {
+        HOUR, DAY
+    }
+}
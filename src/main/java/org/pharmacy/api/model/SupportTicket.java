@@ -14,7 +14,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "support_tickets")
+@Table(name = "support_tickets", indexes = @Index(name = "idx_support_tickets_created_at_id", columnList = "created_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
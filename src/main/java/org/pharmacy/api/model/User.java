@@ -14,7 +14,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_created_at_id", columnList = "created_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,6 +38,10 @@ public class User {
     @Enumerated(EnumType.STRING)
     private UserRole role = UserRole.CUSTOMER;
 
+    // Bumped to revoke every token issued so far
+    @Column(nullable = false)
+    private Integer tokenVersion = 0;
+
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime updatedAt = LocalDateTime.now();
 
@@ -0,0 +1,47 @@
+package org.pharmacy.api.repository;
+
+import org.pharmacy.api.model.CustomerSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * The add* updates move counters in place, so concurrent writers for the same customer never lose
+ * an increment; they return 0 when the customer has no row yet. The spend parameter is cast
+ * explicitly: left to infer it, Hibernate renders {@code cast(? as float($p))}, which H2 rejects.
+ */
+@Repository
+public interface CustomerSummaryRepository extends JpaRepository<CustomerSummary, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerSummary c SET c.pendingOrders = c.pendingOrders + :pending, " +
+            "c.confirmedOrders = c.confirmedOrders + :confirmed, " +
+            "c.processingOrders = c.processingOrders + :processing, " +
+            "c.shippedOrders = c.shippedOrders + :shipped, " +
+            "c.deliveredOrders = c.deliveredOrders + :delivered, " +
+            "c.cancelledOrders = c.cancelledOrders + :cancelled, " +
+            "c.lifetimeSpend = c.lifetimeSpend + CAST(:spend AS double), c.updatedAt = :now WHERE c.userId = :userId")
+    int addOrders(Long userId, long pending, long confirmed, long processing, long shipped, long delivered,
+                  long cancelled, double spend, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerSummary c SET c.pendingPrescriptions = c.pendingPrescriptions + :pending, " +
+            "c.approvedPrescriptions = c.approvedPrescriptions + :approved, " +
+            "c.rejectedPrescriptions = c.rejectedPrescriptions + :rejected, c.updatedAt = :now " +
+            "WHERE c.userId = :userId")
+    int addPrescriptions(Long userId, long pending, long approved, long rejected, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerSummary c SET c.openTickets = c.openTickets + :open, " +
+            "c.inProgressTickets = c.inProgressTickets + :inProgress, " +
+            "c.resolvedTickets = c.resolvedTickets + :resolved, " +
+            "c.closedTickets = c.closedTickets + :closed, c.updatedAt = :now WHERE c.userId = :userId")
+    int addTickets(Long userId, long open, long inProgress, long resolved, long closed, LocalDateTime now);
+}
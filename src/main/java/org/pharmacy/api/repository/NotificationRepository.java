@@ -2,12 +2,34 @@ package org.pharmacy.api.repository;
 
 import org.pharmacy.api.model.Notification;
 import org.pharmacy.api.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUser(User user);
     List<Notification> findByUserAndRead(User user, Boolean read);  // ← Changed from IsRead to Read
-}
\ No newline at end of file
+
+    // Keyset pages of one user's notifications, newest first
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFirstPage(Long userId, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND " +
+            "(n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageAfter(Long userId, LocalDateTime createdAt, Long id, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.read = false " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFirstUnreadPage(Long userId, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.read = false AND " +
+            "(n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadPageAfter(Long userId, LocalDateTime createdAt, Long id, Limit limit);
+}
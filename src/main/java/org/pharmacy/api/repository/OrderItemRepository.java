@@ -6,10 +6,31 @@
  */
 package org.pharmacy.api.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.pharmacy.api.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    /**
+     * Units ordered per product, as {@code [productId, quantity]} rows.
+     */
+    @Query("SELECT i.product.id, SUM(i.quantity) FROM OrderItem i GROUP BY i.product.id")
+    List<Object[]> sumQuantityByProduct();
+
+    /**
+     * {@code [productId, quantity, orderCreatedAt]} for every line of an order placed since {@code since}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT i.product.id, i.quantity, o.createdAt FROM OrderItem i JOIN i.order o WHERE o.createdAt >= :since")
+    Stream<Object[]> streamSoldSince(LocalDateTime since);
 }
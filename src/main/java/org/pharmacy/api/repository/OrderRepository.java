@@ -1,16 +1,43 @@
 package org.pharmacy.api.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.pharmacy.api.dto.OrderSummary;
 import org.pharmacy.api.model.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    // [orderId, status, totalAmount, createdAt, updatedAt, category, subtotal], one row per line
+    String ROLLUP_SELECT = "SELECT o.id, o.status, o.totalAmount, o.createdAt, o.updatedAt, p.category, i.subtotal " +
+            "FROM Order o LEFT JOIN o.items i LEFT JOIN i.product p ";
+
+    String SUMMARY_SELECT = "SELECT new org.pharmacy.api.dto.OrderSummary(o.id, u.id, u.fullName, o.status, " +
+            "o.totalAmount, o.paymentMethod, (SELECT COUNT(i) FROM OrderItem i WHERE i.order = o), o.createdAt) " +
+            "FROM Order o JOIN o.user u ";
+
     List<Order> findByUserId(Long userId);
     List<Order> findByStatus(Order.OrderStatus status);
 
+    @EntityGraph(Order.WITH_ITEMS)
+    Optional<Order> findWithItemsById(Long id);
+
+    @EntityGraph(Order.WITH_ITEMS)
+    List<Order> findWithItemsByStatus(Order.OrderStatus status);
+
     long countByStatus(Order.OrderStatus status);
     long countByUserId(Long userId);
     long countByUserIdAndStatus(Long userId, Order.OrderStatus status);
@@ -18,6 +45,97 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.status = 'DELIVERED'")
     Double sumTotalAmount();
 
+    // [id, userId, totalAmount]
+    @Query("SELECT o.id, o.user.id, o.totalAmount FROM Order o WHERE o.id IN :orderIds AND o.status = :status")
+    List<Object[]> findOwnersAndTotals(Collection<Long> orderIds, Order.OrderStatus status);
+
+    // [status, count, sum of totalAmount]
+    @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupedByStatus();
+
+    // [userId, status, count, sum of totalAmount]
+    @Query("SELECT o.user.id, o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o GROUP BY o.user.id, o.status")
+    List<Object[]> countByUserAndStatus();
+
+    // [userId, status, count, sum of totalAmount]
+    @Query("SELECT o.user.id, o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o " +
+            "WHERE o.user.id IN :userIds GROUP BY o.user.id, o.status")
+    List<Object[]> countByUserAndStatus(Collection<Long> userIds);
+
     @Query("SELECT COALESCE(AVG(o.totalAmount), 0) FROM Order o WHERE o.status = 'DELIVERED'")
     Double averageOrderAmount();
-}
\ No newline at end of file
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.status = :newStatus, o.updatedAt = :now " +
+            "WHERE o.id IN :orderIds AND o.status = :currentStatus")
+    int transitionStatus(Collection<Long> orderIds, Order.OrderStatus currentStatus,
+                         Order.OrderStatus newStatus, LocalDateTime now);
+
+    @Query(SUMMARY_SELECT + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findFirstPage(Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findPageAfter(LocalDateTime createdAt, Long id, Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findSummariesByUserId(Long userId);
+
+    /**
+     * One row per order line, orders without lines included, ordered so that the lines of an order
+     * are adjacent: {@code [orderId, userId, status, totalAmount, paymentMethod, shippingAddress,
+     * createdAt, productId, productName, quantity, price, subtotal]}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o.id, u.id, o.status, o.totalAmount, o.paymentMethod, o.shippingAddress, o.createdAt, " +
+            "p.id, p.name, i.quantity, i.price, i.subtotal " +
+            "FROM Order o JOIN o.user u LEFT JOIN o.items i LEFT JOIN i.product p ORDER BY o.id, i.id")
+    Stream<Object[]> streamOrderLines();
+
+    @Query(ROLLUP_SELECT + "WHERE o.id IN :orderIds ORDER BY o.id")
+    List<Object[]> findRollupLines(Collection<Long> orderIds);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(ROLLUP_SELECT + "ORDER BY o.id")
+    Stream<Object[]> streamRollupLines();
+
+    /**
+     * {@code [totalAmount, units]} per order, where units is the summed quantity of its lines.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o.totalAmount, COALESCE(SUM(i.quantity), 0) FROM Order o LEFT JOIN o.items i " +
+            "GROUP BY o.id, o.totalAmount")
+    Stream<Object[]> streamTotalsAndUnits();
+
+    /**
+     * {@code [userId, createdAt, productId, category]} for every line of an order placed since {@code since}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u.id, o.createdAt, p.id, p.category FROM Order o JOIN o.user u JOIN o.items i JOIN i.product p " +
+            "WHERE o.createdAt >= :since")
+    Stream<Object[]> streamBuyersSince(LocalDateTime since);
+
+    @Query("SELECT MIN(o.id), MAX(o.id) FROM Order o WHERE o.createdAt >= :start AND o.createdAt < :end")
+    List<Object[]> findIdRange(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * {@code [orderId, status, category, quantity, subtotal]} for the lines of orders with an id in
+     * {@code firstId..lastId} created in {@code [start, end)}, optionally of one category, ordered by order.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.id, o.status, p.category, i.quantity, i.subtotal FROM Order o JOIN o.items i JOIN i.product p " +
+            "WHERE o.id BETWEEN :firstId AND :lastId AND o.createdAt >= :start AND o.createdAt < :end " +
+            "AND (:category IS NULL OR p.category = :category) ORDER BY o.id")
+    Stream<Object[]> streamReportLines(Long firstId, Long lastId, LocalDateTime start, LocalDateTime end,
+                                       String category);
+
+    /**
+     * {@code [orderId, status, totalAmount, createdAt, quantity, subtotal]} per order line, orders without
+     * lines included, ordered so that the lines of an order are adjacent.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.id, o.status, o.totalAmount, o.createdAt, i.quantity, i.subtotal " +
+            "FROM Order o LEFT JOIN o.items i ORDER BY o.id")
+    Stream<Object[]> streamFactLines();
+}
@@ -1,12 +1,35 @@
 package org.pharmacy.api.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.pharmacy.api.dto.PaymentHistoryItem;
 import org.pharmacy.api.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByUserId(Long userId);
     List<Payment> findByOrderId(Long orderId);
-}
\ No newline at end of file
+
+    @Query("SELECT new org.pharmacy.api.dto.PaymentHistoryItem(p.id, o.id, p.amount, p.paymentMethod, p.status, " +
+            "p.transactionId, p.cardLastFourDigits, p.createdAt) " +
+            "FROM Payment p LEFT JOIN p.order o WHERE p.user.id = :userId ORDER BY p.createdAt DESC, p.id DESC")
+    List<PaymentHistoryItem> findHistoryByUserId(Long userId);
+
+    /**
+     * {@code [id, orderId, userId, amount, paymentMethod, status, transactionId, createdAt]} rows.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id, o.id, u.id, p.amount, p.paymentMethod, p.status, p.transactionId, p.createdAt " +
+            "FROM Payment p LEFT JOIN p.order o LEFT JOIN p.user u ORDER BY p.id")
+    Stream<Object[]> streamRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.amount FROM Payment p WHERE p.status = :status")
+    Stream<Double> streamAmountsByStatus(Payment.PaymentStatus status);
+}
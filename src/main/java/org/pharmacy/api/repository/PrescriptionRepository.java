@@ -1,9 +1,15 @@
 package org.pharmacy.api.repository;
 
+import org.pharmacy.api.dto.PrescriptionQueueRow;
 import org.pharmacy.api.model.Prescription;
 import org.pharmacy.api.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,4 +21,30 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
     long countByStatus(Prescription.PrescriptionStatus status);
     long countByUserId(Long userId);
     long countByUserIdAndStatus(Long userId, Prescription.PrescriptionStatus status);
-}
\ No newline at end of file
+
+    // [status, count]
+    @Query("SELECT p.status, COUNT(p) FROM Prescription p GROUP BY p.status")
+    List<Object[]> countGroupedByStatus();
+
+    // [userId, status, count]
+    @Query("SELECT p.user.id, p.status, COUNT(p) FROM Prescription p GROUP BY p.user.id, p.status")
+    List<Object[]> countByUserAndStatus();
+
+    // [userId, status, count]
+    @Query("SELECT p.user.id, p.status, COUNT(p) FROM Prescription p WHERE p.user.id IN :userIds " +
+            "GROUP BY p.user.id, p.status")
+    List<Object[]> countByUserAndStatus(Collection<Long> userIds);
+
+    @Query("SELECT new org.pharmacy.api.dto.PrescriptionQueueRow(p.id, u.id, u.fullName, u.email, p.fileName, " +
+            "p.fileType, p.doctorName, p.notes, p.uploadedAt) " +
+            "FROM Prescription p JOIN p.user u WHERE p.status = :status ORDER BY p.uploadedAt, p.id")
+    List<PrescriptionQueueRow> findQueue(Prescription.PrescriptionStatus status);
+
+    @Query("SELECT p FROM Prescription p ORDER BY p.uploadedAt DESC, p.id DESC")
+    List<Prescription> findFirstPage(Limit limit);
+
+    @Query("SELECT p FROM Prescription p WHERE " +
+            "(p.uploadedAt < :uploadedAt OR (p.uploadedAt = :uploadedAt AND p.id < :id)) " +
+            "ORDER BY p.uploadedAt DESC, p.id DESC")
+    List<Prescription> findPageAfter(LocalDateTime uploadedAt, Long id, Limit limit);
+}
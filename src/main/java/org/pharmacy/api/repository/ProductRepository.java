@@ -1,20 +1,63 @@
 package org.pharmacy.api.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.pharmacy.api.dto.ProductCard;
 import org.pharmacy.api.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository {
+    String CARD_SELECT = "SELECT new org.pharmacy.api.dto.ProductCard(p.id, p.name, p.brand, p.category, p.price, " +
+            "p.imageUrl, p.prescriptionRequired, p.stockQuantity, p.createdAt) FROM Product p ";
+
     List<Product> findByCategory(String category);
-    List<Product> findByPrescriptionRequired(boolean prescriptionRequired);
-    List<Product> findByNameContainingIgnoreCase(String name);
 
     long countByStockQuantityLessThan(int quantity);
     long countByStockQuantity(int quantity);
 
     @Query("SELECT COALESCE(SUM(p.price * p.stockQuantity), 0) FROM Product p")
     Double sumInventoryValue();
+
+    // One row: [products, out of stock, low stock (above zero, at or under the reorder level), stock value]
+    @Query("SELECT COUNT(p), " +
+            "COALESCE(SUM(CASE WHEN p.stockQuantity = 0 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN p.stockQuantity > 0 AND p.stockQuantity <= p.reorderLevel THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(p.price * p.stockQuantity), 0) FROM Product p")
+    List<Object[]> summarizeInventory();
+
+    // [id, price, stockQuantity]
+    @Query("SELECT p.id, p.price, p.stockQuantity FROM Product p")
+    List<Object[]> findStockLevels();
+
+    // Keyset pages, newest first: the first page, then the rows strictly after a cursor
+    @Query(CARD_SELECT + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductCard> findFirstPage(Limit limit);
+
+    @Query(CARD_SELECT + "WHERE (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductCard> findPageAfter(LocalDateTime createdAt, Long id, Limit limit);
+
+    @Query(CARD_SELECT + "WHERE p.id IN :ids")
+    List<ProductCard> findCardsByIdIn(Collection<Long> ids);
+
+    @Query(CARD_SELECT + "WHERE p.prescriptionRequired = :prescriptionRequired ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductCard> findCardsByPrescriptionRequired(boolean prescriptionRequired, Limit limit);
+
+    // Forward-only read for exports; the caller must consume it inside a transaction and close it
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAll();
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package org.pharmacy.api.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Stock reads and writes that must not go through a read-modify-write of the {@code Product} entity.
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Read the current stock column for the given products in one query.
+     *
+     * @return product id to stock quantity, missing products are simply absent
+     */
+    Map<Long, Integer> findStockQuantities(Collection<Long> productIds);
+
+    /**
+     * Apply relative stock changes in one JDBC batch ({@code stock_quantity = stock_quantity + ?}).
+     *
+     * @param deltas product id to signed quantity to add
+     */
+    void adjustStock(Map<Long, Long> deltas);
+}
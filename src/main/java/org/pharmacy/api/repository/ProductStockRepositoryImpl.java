@@ -0,0 +1,51 @@
+package org.pharmacy.api.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    private static final String ADJUST_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<Long, Integer> findStockQuantities(Collection<Long> productIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return stock;
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        jdbcTemplate.query(
+                "SELECT id, stock_quantity FROM products WHERE id IN (" + placeholders + ")",
+                (RowCallbackHandler) rs -> stock.put(rs.getLong(1), rs.getInt(2)),
+                productIds.toArray());
+        return stock;
+    }
+
+    @Override
+    public void adjustStock(Map<Long, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // Always touch rows in id order so concurrent writers lock them in the same sequence
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Long> row : new TreeMap<>(deltas).entrySet()) {
+            args.add(new Object[]{row.getValue(), row.getKey()});
+        }
+        jdbcTemplate.batchUpdate(ADJUST_STOCK_SQL, args);
+    }
+}
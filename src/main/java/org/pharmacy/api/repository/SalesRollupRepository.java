@@ -0,0 +1,24 @@
+package org.pharmacy.api.repository;
+
+import org.pharmacy.api.model.Order;
+import org.pharmacy.api.model.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+    List<SalesRollup> findByGranularityAndBucketStartIn(SalesRollup.Granularity granularity,
+                                                        Collection<LocalDateTime> bucketStarts);
+
+    List<SalesRollup> findByGranularityAndBucketStartBefore(SalesRollup.Granularity granularity, LocalDateTime before);
+
+    @Query("SELECT r FROM SalesRollup r WHERE r.granularity = :granularity AND r.status = :status " +
+            "AND r.category = :category AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<SalesRollup> findRange(SalesRollup.Granularity granularity, Order.OrderStatus status, String category,
+                                LocalDateTime from, LocalDateTime to);
+}
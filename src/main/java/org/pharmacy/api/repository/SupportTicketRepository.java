@@ -1,8 +1,13 @@
 package org.pharmacy.api.repository;
 
 import org.pharmacy.api.model.SupportTicket;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +17,25 @@ public interface SupportTicketRepository extends JpaRepository<SupportTicket, Lo
 
     long countByStatus(SupportTicket.TicketStatus status);  // ← CHANGED
     long countByUserId(Long userId);
-}
\ No newline at end of file
+
+    // [status, count]
+    @Query("SELECT t.status, COUNT(t) FROM SupportTicket t GROUP BY t.status")
+    List<Object[]> countGroupedByStatus();
+
+    // [userId, status, count]
+    @Query("SELECT t.user.id, t.status, COUNT(t) FROM SupportTicket t GROUP BY t.user.id, t.status")
+    List<Object[]> countByUserAndStatus();
+
+    // [userId, status, count]
+    @Query("SELECT t.user.id, t.status, COUNT(t) FROM SupportTicket t WHERE t.user.id IN :userIds " +
+            "GROUP BY t.user.id, t.status")
+    List<Object[]> countByUserAndStatus(Collection<Long> userIds);
+
+    @Query("SELECT t FROM SupportTicket t ORDER BY t.createdAt DESC, t.id DESC")
+    List<SupportTicket> findFirstPage(Limit limit);
+
+    @Query("SELECT t FROM SupportTicket t WHERE " +
+            "(t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<SupportTicket> findPageAfter(LocalDateTime createdAt, Long id, Limit limit);
+}
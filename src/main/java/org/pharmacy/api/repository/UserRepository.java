@@ -1,8 +1,13 @@
 package org.pharmacy.api.repository;
 
 import org.pharmacy.api.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -10,4 +15,27 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
     long countByRole(User.UserRole role);
-}
\ No newline at end of file
+
+    // [role, count, count created after since]
+    @Query("SELECT u.role, COUNT(u), COALESCE(SUM(CASE WHEN u.createdAt > :since THEN 1 ELSE 0 END), 0) " +
+            "FROM User u GROUP BY u.role")
+    List<Object[]> summarizeByRole(LocalDateTime since);
+
+    // [role, count]
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countGroupedByRole();
+
+    @Query("SELECT u.id FROM User u")
+    List<Long> findAllIds();
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(Long id);
+
+    @Query("SELECT u FROM User u ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findFirstPage(Limit limit);
+
+    @Query("SELECT u FROM User u WHERE " +
+            "(u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id)) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findPageAfter(LocalDateTime createdAt, Long id, Limit limit);
+}
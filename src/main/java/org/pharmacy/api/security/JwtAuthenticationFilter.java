@@ -6,14 +6,16 @@
  */
 package org.pharmacy.api.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.User;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -25,7 +27,12 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
-    private final CustomUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenVersions tokenVersions;
+
+    // Build the principal from the token's own claims instead of reading the user
+    @Value("${security.jwt.claims-only:true}")
+    private boolean claimsOnly;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -33,13 +40,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt) : null;
+            UserPrincipal principal = claims != null ? resolve(claims) : null;
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String email = tokenProvider.getEmailFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -51,6 +57,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * @return the token's principal, or {@code null} when the token has been revoked
+     */
+    private UserPrincipal resolve(Claims claims) {
+        Number userId = claims.get(JwtTokenProvider.USER_ID, Number.class);
+        String role = claims.get(JwtTokenProvider.ROLE, String.class);
+        Number version = claims.get(JwtTokenProvider.TOKEN_VERSION, Number.class);
+        if (userId == null || role == null || version == null) {
+            // Issued before tokens carried these claims
+            return principalCache.get(claims.getSubject());
+        }
+        if (!tokenVersions.isCurrent(userId.longValue(), version.intValue())) {
+            return null;
+        }
+        if (!claimsOnly) {
+            return principalCache.get(claims.getSubject());
+        }
+        return new UserPrincipal(userId.longValue(), claims.getSubject(), null, User.UserRole.valueOf(role));
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -8,58 +8,132 @@ package org.pharmacy.api.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.pharmacy.api.model.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Issues and verifies HS512 tokens.
+ *
+ * Besides the email as subject a token carries the user id, role and token version, enough to
+ * authenticate a request without reading the user; see {@link TokenVersions} for revocation.
+ *
+ * The signing key and the parser are built once at startup; both are immutable and shared by all
+ * threads. Tokens that verified recently are remembered by the SHA-256 digest of the token, so a
+ * client sending the same bearer token again skips the HMAC and JSON work. A remembered token is
+ * dropped once its {@code exp} has passed, after which it is parsed again and rejected as expired.
+ */
 @Component
 public class JwtTokenProvider {
 
+    public static final String USER_ID = "uid";
+    public static final String ROLE = "role";
+    public static final String TOKEN_VERSION = "ver";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${security.token-cache.max-size:10000}")
+    private int cacheSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private final Map<String, Verified> verified = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
     }
 
-    public String generateToken(String email) {
+    public String generateToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
         return Jwts.builder()
-                .setSubject(email)
+                .setSubject(user.getEmail())
+                .claim(USER_ID, user.getId())
+                .claim(ROLE, user.getRole().name())
+                .claim(TOKEN_VERSION, user.getTokenVersion())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verify the token and return its claims in one pass.
+     *
+     * @return the claims, or {@code null} when the token is malformed, badly signed or expired
+     */
+    public Claims verify(String token) {
+        long now = System.currentTimeMillis();
+        String digest = digest(token);
+        Verified hit = verified.get(digest);
+        if (hit != null) {
+            if (now < hit.expiresAt) {
+                return hit.claims;
+            }
+            verified.remove(digest, hit);
+        }
 
-        return claims.getSubject();
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.getExpiration() != null) {
+            if (verified.size() >= cacheSize) {
+                evict(now);
+            }
+            verified.put(digest, new Verified(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Drop expired tokens, then arbitrary ones until there is room again.
+     */
+    private void evict(long now) {
+        verified.values().removeIf(entry -> now >= entry.expiresAt);
+        Iterator<String> it = verified.keySet().iterator();
+        while (verified.size() >= cacheSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static String digest(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Verified {
+        final Claims claims;
+        final long expiresAt;
+
+        Verified(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
         }
     }
 }
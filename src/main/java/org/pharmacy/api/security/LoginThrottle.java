@@ -0,0 +1,77 @@
+package org.pharmacy.api.security;
+
+import org.pharmacy.api.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exponential backoff on failed logins per email.
+ *
+ * After the {@code n}-th consecutive failure further attempts for that email are refused for
+ * {@code base * 2^(n-1)} milliseconds, capped at {@code security.login-backoff.max-ms}; a successful
+ * login clears it. The check runs before the user is loaded or any password is hashed.
+ */
+@Component
+public class LoginThrottle {
+
+    @Value("${security.login-backoff.base-ms:500}")
+    private long baseMillis;
+
+    @Value("${security.login-backoff.max-ms:300000}")
+    private long maxMillis;
+
+    private final Map<String, Failures> failures = new ConcurrentHashMap<>();
+
+    /**
+     * @throws TooManyRequestsException while the email is backing off
+     */
+    public void check(String email) {
+        Failures entry = failures.get(key(email));
+        if (entry == null) {
+            return;
+        }
+        long wait = entry.blockedUntil - System.currentTimeMillis();
+        if (wait > 0) {
+            throw new TooManyRequestsException("Too many failed logins, try again later", wait);
+        }
+    }
+
+    public void failed(String email) {
+        long now = System.currentTimeMillis();
+        failures.compute(key(email), (key, entry) -> {
+            int count = entry == null ? 1 : entry.count + 1;
+            long backoff = Math.min(maxMillis, baseMillis << Math.min(count - 1, 30));
+            return new Failures(count, now + backoff);
+        });
+    }
+
+    public void succeeded(String email) {
+        failures.remove(key(email));
+    }
+
+    // An email that has been left alone for the longest backoff starts over
+    @Scheduled(fixedDelayString = "${security.rate-limit.sweep-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        failures.values().removeIf(entry -> now - entry.blockedUntil >= maxMillis);
+    }
+
+    private static String key(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Failures {
+        final int count;
+        final long blockedUntil;
+
+        Failures(int count, long blockedUntil) {
+            this.count = count;
+            this.blockedUntil = blockedUntil;
+        }
+    }
+}
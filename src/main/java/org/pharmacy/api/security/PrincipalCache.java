@@ -0,0 +1,95 @@
+package org.pharmacy.api.security;
+
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolved principals by email, so authenticating a request does not query the users table.
+ *
+ * Entries live for {@code security.principal-cache.ttl-seconds} and at most
+ * {@code security.principal-cache.max-size} are kept. Profile, role and account changes invalidate
+ * the user's entry both right away and once their transaction completes; a load that overlaps an
+ * invalidation is used for its request but not cached, so a stale role never outlives the write.
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${security.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserPrincipal get(String email) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(email);
+        if (entry != null && now - entry.expiresAt < 0) {
+            return entry.principal;
+        }
+
+        long generation = invalidations.get();
+        UserPrincipal principal = userRepository.findByEmail(email)
+                .map(UserPrincipal::of)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        if (invalidations.get() == generation) {
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            entries.put(email, new Entry(principal, now + ttlSeconds * 1_000_000_000L));
+        }
+        return principal;
+    }
+
+    public void invalidate(String email) {
+        invalidations.incrementAndGet();
+        entries.remove(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A request may load the old row between now and the commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidations.incrementAndGet();
+                    entries.remove(email);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop expired entries, then arbitrary ones until there is room again.
+     */
+    private void evict(long now) {
+        entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static final class Entry {
+        final UserPrincipal principal;
+        final long expiresAt;
+
+        Entry(UserPrincipal principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.pharmacy.api.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.dto.ApiResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects requests over their rate limit with 429 before they reach a controller.
+ *
+ * Requests fall into a route class (sign-in, reports, other writes, other reads), each with its own
+ * rate and burst. Authenticated requests draw from a bucket per user and route class, anonymous ones
+ * from a bucket per client IP and route class. Runs right after {@link JwtAuthenticationFilter}, so
+ * a limited request costs one token check on top of authentication and never reaches JPA or BCrypt.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${security.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.rate-limit.auth.per-second:1}")
+    private double authPerSecond;
+
+    @Value("${security.rate-limit.auth.burst:10}")
+    private int authBurst;
+
+    @Value("${security.rate-limit.reports.per-second:2}")
+    private double reportsPerSecond;
+
+    @Value("${security.rate-limit.reports.burst:10}")
+    private int reportsBurst;
+
+    @Value("${security.rate-limit.write.per-second:10}")
+    private double writePerSecond;
+
+    @Value("${security.rate-limit.write.burst:20}")
+    private int writeBurst;
+
+    @Value("${security.rate-limit.read.per-second:50}")
+    private double readPerSecond;
+
+    @Value("${security.rate-limit.read.burst:100}")
+    private int readBurst;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getServletPath().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getServletPath();
+        String routeClass;
+        long wait;
+        if (path.equals("/api/auth/login") || path.equals("/api/auth/register")) {
+            routeClass = "auth";
+            wait = rateLimiter.tryAcquire(key(routeClass, request), authPerSecond, authBurst);
+        } else if (path.startsWith("/api/reports/")) {
+            routeClass = "reports";
+            wait = rateLimiter.tryAcquire(key(routeClass, request), reportsPerSecond, reportsBurst);
+        } else if (!"GET".equals(request.getMethod())) {
+            routeClass = "write";
+            wait = rateLimiter.tryAcquire(key(routeClass, request), writePerSecond, writeBurst);
+        } else {
+            routeClass = "read";
+            wait = rateLimiter.tryAcquire(key(routeClass, request), readPerSecond, readBurst);
+        }
+
+        if (wait > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(wait) + 1));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    ApiResponse.error("Rate limit exceeded for " + routeClass + " requests, try again later"));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static String key(String routeClass, HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return routeClass + ":user:" + principal.getId();
+        }
+        return routeClass + ":ip:" + request.getRemoteAddr();
+    }
+}
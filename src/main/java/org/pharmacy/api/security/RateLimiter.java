@@ -0,0 +1,82 @@
+package org.pharmacy.api.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token buckets keyed by an arbitrary string, e.g. route class plus principal or IP.
+ *
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full again (the
+ * generic cell rate algorithm), so taking a token is one compare-and-set and never blocks. Buckets
+ * live in a fixed number of shards; a bucket that has been full for {@code security.rate-limit.idle-seconds}
+ * behaves exactly like a new one, so a periodic sweep drops it.
+ */
+@Component
+public class RateLimiter {
+
+    private static final int SHARDS = 32;
+
+    @Value("${security.rate-limit.idle-seconds:300}")
+    private long idleSeconds;
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, AtomicLong>[] shards = new ConcurrentHashMap[SHARDS];
+
+    public RateLimiter() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Take one token from the bucket of {@code key}.
+     *
+     * @param perSecond tokens added per second
+     * @param burst     bucket size, the number of requests allowed back to back
+     * @return 0 when a token was taken, otherwise nanoseconds until one is available
+     */
+    public long tryAcquire(String key, double perSecond, int burst) {
+        long now = System.nanoTime();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        long tolerance = interval * burst;
+        AtomicLong fullAt = shard(key).computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> shard : shards) {
+            size += shard.mappingCount();
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${security.rate-limit.sweep-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        long idle = TimeUnit.SECONDS.toNanos(idleSeconds);
+        for (ConcurrentHashMap<String, AtomicLong> shard : shards) {
+            shard.values().removeIf(fullAt -> now - fullAt.get() >= idle);
+        }
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> shard(String key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (SHARDS - 1)];
+    }
+}
@@ -0,0 +1,68 @@
+package org.pharmacy.api.security;
+
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.User;
+import org.pharmacy.api.repository.UserRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current token version per user, the revocation check for tokens that carry their own claims.
+ *
+ * A token is accepted only while the version it was issued with is still the user's current one.
+ * Role and password changes bump the version in the users table and, once that commits, here;
+ * deleting a user revokes all of their tokens. A user's version is read from the database the first
+ * time one of their tokens is seen, so a restart loses nothing.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenVersions {
+
+    private static final int REVOKED = -1;
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public boolean isCurrent(Long userId, int version) {
+        Integer current = versions.get(userId);
+        if (current == null) {
+            int loaded = userRepository.findTokenVersionById(userId).orElse(REVOKED);
+            Integer raced = versions.putIfAbsent(userId, loaded);
+            current = raced != null ? raced : loaded;
+        }
+        return current != REVOKED && current == version;
+    }
+
+    /**
+     * Revoke the user's tokens; the caller saves the user within the surrounding transaction.
+     */
+    public void bump(User user) {
+        int version = user.getTokenVersion() + 1;
+        user.setTokenVersion(version);
+        afterCommit(user.getId(), version);
+    }
+
+    public void revoke(Long userId) {
+        afterCommit(userId, REVOKED);
+    }
+
+    private void afterCommit(Long userId, int version) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.put(userId, version);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    versions.put(userId, version);
+                }
+            }
+        });
+    }
+}
@@ -7,106 +7,81 @@
 package org.pharmacy.api.service;
 
 import org.pharmacy.api.model.Order;
-import org.pharmacy.api.model.Product;
 import org.pharmacy.api.model.User;
-import org.pharmacy.api.repository.OrderRepository;
 import org.pharmacy.api.repository.ProductRepository;
 import org.pharmacy.api.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class AnalyticsService {
 
-    private final OrderRepository orderRepository;
+    private final OrderFactStore orderFactStore;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final QuantileTracker quantileTracker;
+    private final DistinctCountTracker distinctCountTracker;
 
     public Map<String, Object> getSalesReport() {
         Map<String, Object> report = new HashMap<>();
-        List<Order> allOrders = orderRepository.findAll();
 
-        double totalRevenue = allOrders.stream()
-                .filter(o -> o.getStatus() == Order.OrderStatus.DELIVERED)
-                .mapToDouble(Order::getTotalAmount)
-                .sum();
-
-        long totalOrders = allOrders.stream()
-                .filter(o -> o.getStatus() == Order.OrderStatus.DELIVERED)
-                .count();
-
-        long pendingOrders = allOrders.stream()
-                .filter(o -> o.getStatus() == Order.OrderStatus.PENDING ||
-                        o.getStatus() == Order.OrderStatus.CONFIRMED)
-                .count();
+        OrderFactStore.OrderTotals totals = orderFactStore.orderTotals(Long.MIN_VALUE, Long.MAX_VALUE);
+        double totalRevenue = totals.amount(Order.OrderStatus.DELIVERED);
+        long totalOrders = totals.count(Order.OrderStatus.DELIVERED);
+        long pendingOrders = totals.count(Order.OrderStatus.PENDING) + totals.count(Order.OrderStatus.CONFIRMED);
 
         report.put("totalRevenue", totalRevenue);
         report.put("totalOrders", totalOrders);
         report.put("pendingOrders", pendingOrders);
         report.put("averageOrderValue", totalOrders > 0 ? totalRevenue / totalOrders : 0);
+        report.put("unitsSold", orderFactStore.lineTotals(Long.MIN_VALUE, Long.MAX_VALUE).units());
+        report.put("orderValuePercentiles", quantileTracker.percentiles(QuantileTracker.ORDER_TOTAL));
+        report.put("basketSizePercentiles", quantileTracker.percentiles(QuantileTracker.BASKET_SIZE));
+        report.put("paymentAmountPercentiles", quantileTracker.percentiles(QuantileTracker.PAYMENT_AMOUNT));
+        report.put("requestLatencyMsPercentiles", quantileTracker.percentiles(QuantileTracker.REQUEST_LATENCY_MS));
+        report.put("distinctProductsSoldByCategory", distinctCountTracker.productsSoldByCategory());
 
         return report;
     }
 
     public Map<String, Object> getInventoryReport() {
         Map<String, Object> report = new HashMap<>();
-        List<Product> allProducts = productRepository.findAll();
-
-        long totalProducts = allProducts.size();
-        long outOfStock = allProducts.stream()
-                .filter(p -> p.getStockQuantity() == 0)
-                .count();
-
-        long lowStock = allProducts.stream()
-                .filter(p -> p.getStockQuantity() > 0 && p.getStockQuantity() <= p.getReorderLevel())
-                .count();
+        Object[] summary = productRepository.summarizeInventory().get(0);
 
-        double totalInventoryValue = allProducts.stream()
-                .mapToDouble(p -> p.getPrice() * p.getStockQuantity())
-                .sum();
-
-        report.put("totalProducts", totalProducts);
-        report.put("outOfStock", outOfStock);
-        report.put("lowStock", lowStock);
-        report.put("totalInventoryValue", totalInventoryValue);
+        report.put("totalProducts", ((Number) summary[0]).longValue());
+        report.put("outOfStock", ((Number) summary[1]).longValue());
+        report.put("lowStock", ((Number) summary[2]).longValue());
+        report.put("totalInventoryValue", ((Number) summary[3]).doubleValue());
 
         return report;
     }
 
     public Map<String, Object> getUsersReport() {
         Map<String, Object> report = new HashMap<>();
-        List<User> allUsers = userRepository.findAll();
-
-        long totalUsers = allUsers.size();
-        long customers = allUsers.stream()
-                .filter(u -> u.getRole() == User.UserRole.CUSTOMER)
-                .count();
-
-        long pharmacists = allUsers.stream()
-                .filter(u -> u.getRole() == User.UserRole.PHARMACIST)
-                .count();
-
-        long admins = allUsers.stream()
-                .filter(u -> u.getRole() == User.UserRole.ADMIN)
-                .count();
 
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        long newUsers = allUsers.stream()
-                .filter(u -> u.getCreatedAt().isAfter(thirtyDaysAgo))
-                .count();
+        long totalUsers = 0;
+        long newUsers = 0;
+        Map<User.UserRole, Long> byRole = new EnumMap<>(User.UserRole.class);
+        for (Object[] row : userRepository.summarizeByRole(LocalDateTime.now().minusDays(30))) {
+            long count = ((Number) row[1]).longValue();
+            byRole.put((User.UserRole) row[0], count);
+            totalUsers += count;
+            newUsers += ((Number) row[2]).longValue();
+        }
 
         report.put("totalUsers", totalUsers);
-        report.put("customers", customers);
-        report.put("pharmacists", pharmacists);
-        report.put("admins", admins);
+        report.put("customers", byRole.getOrDefault(User.UserRole.CUSTOMER, 0L));
+        report.put("pharmacists", byRole.getOrDefault(User.UserRole.PHARMACIST, 0L));
+        report.put("admins", byRole.getOrDefault(User.UserRole.ADMIN, 0L));
         report.put("newUsersLast30Days", newUsers);
+        report.putAll(distinctCountTracker.userCounts());
 
         return report;
     }
-}
\ No newline at end of file
+}
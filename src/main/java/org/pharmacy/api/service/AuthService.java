@@ -11,66 +11,131 @@ import org.pharmacy.api.dto.*;
 import org.pharmacy.api.model.User;
 import org.pharmacy.api.repository.UserRepository;
 import org.pharmacy.api.security.JwtTokenProvider;
+import org.pharmacy.api.security.LoginThrottle;
+import org.pharmacy.api.security.PrincipalCache;
+import org.pharmacy.api.security.TokenVersions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final PlatformTransactionManager transactionManager;
     private final JwtTokenProvider jwtTokenProvider;
+    private final MetricsLedger metricsLedger;
+    private final DistinctCountTracker distinctCountTracker;
+    private final CustomerSummaryService customerSummaryService;
+    private final PrincipalCache principalCache;
+    private final TokenVersions tokenVersions;
+    private final LoginThrottle loginThrottle;
+
+    @Value("${security.registration.threads:2}")
+    private int registrationThreads;
+
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService registrations;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger created = new AtomicInteger();
+        registrations = Executors.newFixedThreadPool(registrationThreads, runnable -> {
+            Thread thread = new Thread(runnable, "user-registration-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        registrations.shutdown();
+    }
 
-    @Transactional
-    public AuthResponse register(RegisterRequest request) {
+    /**
+     * Hashes the password on the {@link PasswordHasher} pool, then saves the user in a transaction on
+     * a pool of its own, so hashing threads never wait for a connection.
+     */
+    public CompletableFuture<AuthResponse> register(RegisterRequest request) {
         // Check if user exists
         if (userRepository.findByEmail(request.getEmail()).isPresent()) {
             throw new RuntimeException("Email already registered");
         }
 
+        // Set role from request, default to CUSTOMER if not provided
+        String roleStr = request.getRole() != null ? request.getRole() : "CUSTOMER";
+        UserRole role = UserRole.valueOf(roleStr);
+
+        return passwordHasher.encode(request.getPassword())
+                .thenApplyAsync(hash -> transactionTemplate.execute(status -> createUser(request, role, hash)), registrations);
+    }
+
+    private AuthResponse createUser(RegisterRequest request, UserRole role, String passwordHash) {
         // Create new user
         User user = new User();
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHash);
         user.setFullName(request.getFullName());
         user.setPhone(request.getPhone());
         user.setAddress(request.getAddress());
-
-        // Set role from request, default to CUSTOMER if not provided
-        String roleStr = request.getRole() != null ? request.getRole() : "CUSTOMER";
-        user.setRole(UserRole.valueOf(roleStr));  // ← Changed from Role to UserRole
+        user.setRole(role);
 
         userRepository.save(user);
+        customerSummaryService.userCreated(user.getId());
+        metricsLedger.userRoleChangedAfterCommit(null, user.getRole());
 
         // Generate token
-        String token = jwtTokenProvider.generateToken(user.getEmail());
+        String token = jwtTokenProvider.generateToken(user);
 
         return new AuthResponse(token, "Bearer", user.getId(), user.getEmail(),
                 user.getFullName(), user.getRole().name());
     }
 
-    public AuthResponse login(LoginRequest request) {
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
+    /**
+     * Checks the password on the {@link PasswordHasher} pool.
+     */
+    public CompletableFuture<AuthResponse> login(LoginRequest request) {
+        // Refuse an email that is backing off before touching the database or the hashing pool
+        loginThrottle.check(request.getEmail());
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        User user = userRepository.findByEmail(request.getEmail()).orElse(null);
+        if (user == null) {
+            loginThrottle.failed(request.getEmail());
             throw new BadCredentialsException("Invalid credentials");
         }
 
-        String token = jwtTokenProvider.generateToken(user.getEmail());
-
-        return new AuthResponse(
-                token,
-                "Bearer",
-                user.getId(),
-                user.getEmail(),
-                user.getFullName(),
-                user.getRole().name()  // ← This is correct now
-        );
+        return passwordHasher.matches(request.getPassword(), user.getPassword()).thenApply(matches -> {
+            if (!matches) {
+                loginThrottle.failed(request.getEmail());
+                throw new BadCredentialsException("Invalid credentials");
+            }
+            loginThrottle.succeeded(request.getEmail());
+
+            String token = jwtTokenProvider.generateToken(user);
+            distinctCountTracker.recordLogin(user.getId());
+
+            return new AuthResponse(
+                    token,
+                    "Bearer",
+                    user.getId(),
+                    user.getEmail(),
+                    user.getFullName(),
+                    user.getRole().name()
+            );
+        });
     }
 
     public User getProfile(String email) {
@@ -78,27 +143,53 @@ public class AuthService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
-    @Transactional
-    public User updateProfile(String email, UpdateProfileRequest request) {
-        User user = getProfile(email);
-
-        if (request.getFullName() != null) {
-            user.setFullName(request.getFullName());
-        }
-        if (request.getPhone() != null) {
-            user.setPhone(request.getPhone());
-        }
-        if (request.getAddress() != null) {
-            user.setAddress(request.getAddress());
+    /**
+     * Checks and hashes passwords on the {@link PasswordHasher} pool, then saves the change in a
+     * transaction on the registration pool, so neither the request thread nor a connection waits for
+     * hashing.
+     */
+    public CompletableFuture<User> updateProfile(String email, UpdateProfileRequest request) {
+        if (request.getCurrentPassword() == null || request.getNewPassword() == null) {
+            return CompletableFuture.completedFuture(saveProfile(email, request, null, null));
         }
 
-        if (request.getCurrentPassword() != null && request.getNewPassword() != null) {
-            if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
-                throw new RuntimeException("Current password is incorrect");
+        String verifiedHash = getProfile(email).getPassword();
+        return passwordHasher.matches(request.getCurrentPassword(), verifiedHash)
+                .thenCompose(matches -> {
+                    if (!matches) {
+                        throw new RuntimeException("Current password is incorrect");
+                    }
+                    return passwordHasher.encode(request.getNewPassword());
+                })
+                .thenApplyAsync(newHash -> saveProfile(email, request, verifiedHash, newHash), registrations);
+    }
+
+    private User saveProfile(String email, UpdateProfileRequest request, String expectedHash, String passwordHash) {
+        User updated = transactionTemplate.execute(status -> {
+            User user = getProfile(email);
+
+            if (request.getFullName() != null) {
+                user.setFullName(request.getFullName());
+            }
+            if (request.getPhone() != null) {
+                user.setPhone(request.getPhone());
+            }
+            if (request.getAddress() != null) {
+                user.setAddress(request.getAddress());
+            }
+
+            if (passwordHash != null) {
+                // The current password was checked against this hash; refuse if it changed since
+                if (!expectedHash.equals(user.getPassword())) {
+                    throw new RuntimeException("Password was changed meanwhile, please retry");
+                }
+                user.setPassword(passwordHash);
+                tokenVersions.bump(user);
             }
-            user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        }
 
-        return userRepository.save(user);
+            return userRepository.save(user);
+        });
+        principalCache.invalidate(email);
+        return updated;
     }
 }
@@ -0,0 +1,329 @@
+package org.pharmacy.api.service;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Set of non-negative ints split into 65536-value chunks, Roaring style.
+ *
+ * Each chunk keeps a sorted {@code char[]} while it holds at most {@value #ARRAY_LIMIT} values and a
+ * 1024-word bitmap once it grows past that, so sparse sets cost two bytes per value and dense sets
+ * one bit. Intersections only visit chunks present on both sides. Not thread-safe.
+ */
+final class CompressedBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Chunk[] chunks = new Chunk[4];
+    private int size;
+
+    void add(int value) {
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new Chunk());
+        }
+        chunks[index].add((char) value);
+    }
+
+    void remove(int value) {
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Chunk chunk = chunks[index];
+        chunk.remove((char) value);
+        if (chunk.cardinality == 0) {
+            removeChunk(index);
+        }
+    }
+
+    boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && chunks[index].contains((char) value);
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += chunks[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Chunk chunk = chunks[i].and(other.chunks[j]);
+                if (chunk.cardinality > 0) {
+                    result.insertChunk(result.size, keys[i], chunk);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    int andCardinality(CompressedBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                cardinality += chunks[i].andCardinality(other.chunks[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.insertChunk(result.size, keys[i], chunks[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.insertChunk(result.size, other.keys[j], other.chunks[j].copy());
+                j++;
+            } else {
+                result.insertChunk(result.size, keys[i], chunks[i].or(other.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Visit values in ascending order until the visitor returns false.
+     */
+    void forEach(IntPredicate visitor) {
+        for (int i = 0; i < size; i++) {
+            if (!chunks[i].forEach(keys[i] << 16, visitor)) {
+                return;
+            }
+        }
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertChunk(int index, char key, Chunk chunk) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(chunks, index, chunks, index + 1, size - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        size++;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(chunks, index + 1, chunks, index, size - index - 1);
+        chunks[--size] = null;
+    }
+
+    /**
+     * The low 16 bits of one chunk: a sorted array when sparse, a bitmap when dense.
+     */
+    private static final class Chunk {
+        char[] array = new char[4];
+        long[] words;
+        int cardinality;
+
+        void add(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) == 0) {
+                    words[value >>> 6] |= bit;
+                    cardinality++;
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, value);
+            if (index >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                toWords();
+                add(value);
+                return;
+            }
+            index = -index - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(cardinality * 2, ARRAY_LIMIT));
+            }
+            System.arraycopy(array, index, array, index + 1, cardinality - index);
+            array[index] = value;
+            cardinality++;
+        }
+
+        void remove(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) != 0) {
+                    words[value >>> 6] &= ~bit;
+                    if (--cardinality <= ARRAY_LIMIT) {
+                        toArray();
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(array, index + 1, array, index, cardinality - index - 1);
+                cardinality--;
+            }
+        }
+
+        boolean contains(char value) {
+            if (words != null) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, value) >= 0;
+        }
+
+        Chunk and(Chunk other) {
+            Chunk result = new Chunk();
+            if (words != null && other.words != null) {
+                result.words = new long[WORDS];
+                for (int i = 0; i < WORDS; i++) {
+                    result.words[i] = words[i] & other.words[i];
+                    result.cardinality += Long.bitCount(result.words[i]);
+                }
+                result.array = null;
+                if (result.cardinality <= ARRAY_LIMIT) {
+                    result.toArray();
+                }
+                return result;
+            }
+
+            Chunk sparse = words == null ? this : other;
+            Chunk probe = sparse == this ? other : this;
+            result.array = new char[Math.max(4, sparse.cardinality)];
+            for (int i = 0; i < sparse.cardinality; i++) {
+                if (probe.contains(sparse.array[i])) {
+                    result.array[result.cardinality++] = sparse.array[i];
+                }
+            }
+            return result;
+        }
+
+        int andCardinality(Chunk other) {
+            if (words != null && other.words != null) {
+                int cardinality = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    cardinality += Long.bitCount(words[i] & other.words[i]);
+                }
+                return cardinality;
+            }
+            Chunk sparse = words == null ? this : other;
+            Chunk probe = sparse == this ? other : this;
+            int cardinality = 0;
+            for (int i = 0; i < sparse.cardinality; i++) {
+                if (probe.contains(sparse.array[i])) {
+                    cardinality++;
+                }
+            }
+            return cardinality;
+        }
+
+        Chunk or(Chunk other) {
+            Chunk result = copy();
+            if (other.words != null) {
+                result.toWords();
+                result.cardinality = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    result.words[i] |= other.words[i];
+                    result.cardinality += Long.bitCount(result.words[i]);
+                }
+                return result;
+            }
+            for (int i = 0; i < other.cardinality; i++) {
+                result.add(other.array[i]);
+            }
+            return result;
+        }
+
+        Chunk copy() {
+            Chunk copy = new Chunk();
+            copy.cardinality = cardinality;
+            if (words != null) {
+                copy.words = words.clone();
+                copy.array = null;
+            } else {
+                copy.array = Arrays.copyOf(array, Math.max(4, cardinality));
+            }
+            return copy;
+        }
+
+        boolean forEach(int high, IntPredicate visitor) {
+            if (words == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (!visitor.test(high | array[i])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    if (!visitor.test(high | (i << 6) | Long.numberOfTrailingZeros(word))) {
+                        return false;
+                    }
+                    word &= word - 1;
+                }
+            }
+            return true;
+        }
+
+        private void toWords() {
+            if (words != null) {
+                return;
+            }
+            words = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[array[i] >>> 6] |= 1L << array[i];
+            }
+            array = null;
+        }
+
+        private void toArray() {
+            char[] values = new char[Math.max(4, cardinality)];
+            int n = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            array = values;
+            words = null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.pharmacy.api.service;
+
+import java.util.Arrays;
+
+/**
+ * Approximate per-key counts in a fixed table of {@code depth x width} counters.
+ *
+ * Every key increments one counter per row and its estimate is the smallest of those counters, so
+ * an estimate never undercounts and overcounts by at most {@code e / width} of the total with
+ * probability {@code 1 - e^-depth}. Counters are updated plainly (no conservative update) so that
+ * sketches stay linear: one sketch can be subtracted from another with the same shape.
+ */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[] counters;
+
+    /**
+     * @param widthBits log2 of the number of counters per row
+     */
+    CountMinSketch(int depth, int widthBits) {
+        this.depth = depth;
+        this.width = 1 << widthBits;
+        this.counters = new long[depth * width];
+    }
+
+    void add(long key, long count) {
+        for (int row = 0; row < depth; row++) {
+            counters[slot(key, row)] += count;
+        }
+    }
+
+    long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[slot(key, row)]);
+        }
+        return estimate;
+    }
+
+    void subtract(CountMinSketch other) {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] -= other.counters[i];
+        }
+    }
+
+    void clear() {
+        Arrays.fill(counters, 0);
+    }
+
+    private int slot(long key, int row) {
+        // splitmix64 finalizer over a per-row offset gives independent-enough hashes per row
+        long h = key * 0x9E3779B97F4A7C15L + (row + 1) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return row * width + (int) (h & (width - 1));
+    }
+}
@@ -0,0 +1,234 @@
+package org.pharmacy.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.CustomerSummary;
+import org.pharmacy.api.model.Order;
+import org.pharmacy.api.model.Prescription;
+import org.pharmacy.api.model.SupportTicket;
+import org.pharmacy.api.repository.CustomerSummaryRepository;
+import org.pharmacy.api.repository.OrderRepository;
+import org.pharmacy.api.repository.PrescriptionRepository;
+import org.pharmacy.api.repository.SupportTicketRepository;
+import org.pharmacy.api.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Keeps the {@link CustomerSummary} rows in step with orders, prescriptions and tickets.
+ *
+ * The write paths call in here inside their own transaction, right after saving the entity, so a
+ * summary row commits or rolls back together with the change it describes. Counters move through
+ * in-place UPDATEs rather than read-modify-write, so two transactions touching the same customer
+ * serialize on the row lock instead of overwriting each other. A customer without a row yet, e.g.
+ * one created before this table existed, gets it rebuilt from their history on first write.
+ */
+@Service
+@RequiredArgsConstructor
+public class CustomerSummaryService {
+
+    private final CustomerSummaryRepository customerSummaryRepository;
+    private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final SupportTicketRepository supportTicketRepository;
+
+    // Runs before the reservation restore, whose expired orders then land on complete rows
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void backfillIfIncomplete() {
+        if (customerSummaryRepository.count() == userRepository.count()) {
+            return;
+        }
+        customerSummaryRepository.deleteAllInBatch();
+        Map<Long, CustomerSummary> summaries = summarize(userRepository.findAllIds(),
+                orderRepository.countByUserAndStatus(), prescriptionRepository.countByUserAndStatus(),
+                supportTicketRepository.countByUserAndStatus());
+        customerSummaryRepository.saveAll(summaries.values());
+        System.out.println("🧾 Customer summaries rebuilt for " + summaries.size() + " users");
+    }
+
+    @Transactional(readOnly = true)
+    public CustomerSummary getSummary(Long userId) {
+        return customerSummaryRepository.findById(userId).orElseGet(() -> new CustomerSummary(userId));
+    }
+
+    @Transactional
+    public void userCreated(Long userId) {
+        customerSummaryRepository.save(new CustomerSummary(userId));
+    }
+
+    @Transactional
+    public void userDeleted(Long userId) {
+        customerSummaryRepository.deleteById(userId);
+    }
+
+    /**
+     * @param from previous status, {@code null} for a new order
+     */
+    @Transactional
+    public void orderStatusChanged(Long userId, Double amount, Order.OrderStatus from, Order.OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        long[] delta = new long[Order.OrderStatus.values().length];
+        double value = amount == null ? 0 : amount;
+        double spend = 0;
+        if (from != null) {
+            delta[from.ordinal()]--;
+            if (from == Order.OrderStatus.DELIVERED) {
+                spend -= value;
+            }
+        }
+        delta[to.ordinal()]++;
+        if (to == Order.OrderStatus.DELIVERED) {
+            spend += value;
+        }
+        double spent = spend;
+        apply(userId, () -> customerSummaryRepository.addOrders(userId,
+                delta[Order.OrderStatus.PENDING.ordinal()], delta[Order.OrderStatus.CONFIRMED.ordinal()],
+                delta[Order.OrderStatus.PROCESSING.ordinal()], delta[Order.OrderStatus.SHIPPED.ordinal()],
+                delta[Order.OrderStatus.DELIVERED.ordinal()], delta[Order.OrderStatus.CANCELLED.ordinal()],
+                spent, LocalDateTime.now()));
+    }
+
+    /**
+     * Move expired unpaid orders from pending to cancelled.
+     *
+     * @param cancelledByUser number of cancelled orders per user id
+     */
+    @Transactional
+    public void pendingOrdersCancelled(Map<Long, Long> cancelledByUser) {
+        LocalDateTime now = LocalDateTime.now();
+        cancelledByUser.forEach((userId, count) -> apply(userId, () ->
+                customerSummaryRepository.addOrders(userId, -count, 0, 0, 0, 0, count, 0, now)));
+    }
+
+    /**
+     * @param from previous status, {@code null} for a new upload
+     */
+    @Transactional
+    public void prescriptionStatusChanged(Long userId, Prescription.PrescriptionStatus from,
+                                          Prescription.PrescriptionStatus to) {
+        if (from == to) {
+            return;
+        }
+        long[] delta = new long[Prescription.PrescriptionStatus.values().length];
+        if (from != null) {
+            delta[from.ordinal()]--;
+        }
+        delta[to.ordinal()]++;
+        apply(userId, () -> customerSummaryRepository.addPrescriptions(userId,
+                delta[Prescription.PrescriptionStatus.PENDING.ordinal()],
+                delta[Prescription.PrescriptionStatus.APPROVED.ordinal()],
+                delta[Prescription.PrescriptionStatus.REJECTED.ordinal()], LocalDateTime.now()));
+    }
+
+    /**
+     * @param from previous status, {@code null} for a new ticket
+     */
+    @Transactional
+    public void ticketStatusChanged(Long userId, SupportTicket.TicketStatus from, SupportTicket.TicketStatus to) {
+        if (from == to) {
+            return;
+        }
+        long[] delta = new long[SupportTicket.TicketStatus.values().length];
+        if (from != null) {
+            delta[from.ordinal()]--;
+        }
+        delta[to.ordinal()]++;
+        apply(userId, () -> customerSummaryRepository.addTickets(userId,
+                delta[SupportTicket.TicketStatus.OPEN.ordinal()], delta[SupportTicket.TicketStatus.IN_PROGRESS.ordinal()],
+                delta[SupportTicket.TicketStatus.RESOLVED.ordinal()], delta[SupportTicket.TicketStatus.CLOSED.ordinal()],
+                LocalDateTime.now()));
+    }
+
+    /**
+     * Recount the given customers from their orders, prescriptions and tickets.
+     */
+    @Transactional
+    public void rebuild(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Map<Long, CustomerSummary> summaries = summarize(userIds, orderRepository.countByUserAndStatus(userIds),
+                prescriptionRepository.countByUserAndStatus(userIds),
+                supportTicketRepository.countByUserAndStatus(userIds));
+        customerSummaryRepository.saveAll(summaries.values());
+    }
+
+    private void apply(Long userId, IntSupplier update) {
+        if (update.getAsInt() == 0 && userRepository.existsById(userId)) {
+            // The recount already sees the change that is being applied, it was flushed before the UPDATE ran
+            rebuild(List.of(userId));
+        }
+    }
+
+    private static Map<Long, CustomerSummary> summarize(Collection<Long> userIds, List<Object[]> orders,
+                                                        List<Object[]> prescriptions, List<Object[]> tickets) {
+        Map<Long, CustomerSummary> summaries = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            summaries.put(userId, new CustomerSummary(userId));
+        }
+
+        // [userId, status, count, sum of totalAmount]
+        for (Object[] row : orders) {
+            CustomerSummary summary = summaries.get((Long) row[0]);
+            if (summary == null) {
+                continue;
+            }
+            long count = (Long) row[2];
+            switch ((Order.OrderStatus) row[1]) {
+                case PENDING -> summary.setPendingOrders(count);
+                case CONFIRMED -> summary.setConfirmedOrders(count);
+                case PROCESSING -> summary.setProcessingOrders(count);
+                case SHIPPED -> summary.setShippedOrders(count);
+                case DELIVERED -> {
+                    summary.setDeliveredOrders(count);
+                    summary.setLifetimeSpend(((Number) row[3]).doubleValue());
+                }
+                case CANCELLED -> summary.setCancelledOrders(count);
+            }
+        }
+
+        // [userId, status, count]
+        for (Object[] row : prescriptions) {
+            CustomerSummary summary = summaries.get((Long) row[0]);
+            if (summary == null) {
+                continue;
+            }
+            long count = (Long) row[2];
+            switch ((Prescription.PrescriptionStatus) row[1]) {
+                case PENDING -> summary.setPendingPrescriptions(count);
+                case APPROVED -> summary.setApprovedPrescriptions(count);
+                case REJECTED -> summary.setRejectedPrescriptions(count);
+            }
+        }
+
+        // [userId, status, count]
+        for (Object[] row : tickets) {
+            CustomerSummary summary = summaries.get((Long) row[0]);
+            if (summary == null) {
+                continue;
+            }
+            long count = (Long) row[2];
+            switch ((SupportTicket.TicketStatus) row[1]) {
+                case OPEN -> summary.setOpenTickets(count);
+                case IN_PROGRESS -> summary.setInProgressTickets(count);
+                case RESOLVED -> summary.setResolvedTickets(count);
+                case CLOSED -> summary.setClosedTickets(count);
+            }
+        }
+        return summaries;
+    }
+}
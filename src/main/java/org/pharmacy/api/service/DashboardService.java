@@ -7,114 +7,116 @@
 package org.pharmacy.api.service;
 
 import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.CustomerSummary;
 import org.pharmacy.api.model.Order;
 import org.pharmacy.api.model.Prescription;
-import org.pharmacy.api.model.Product;
 import org.pharmacy.api.model.User;
 import org.pharmacy.api.model.SupportTicket;
-import org.pharmacy.api.repository.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
-    private final UserRepository userRepository;
-    private final ProductRepository productRepository;
-    private final OrderRepository orderRepository;
-    private final PrescriptionRepository prescriptionRepository;
-    private final SupportTicketRepository supportTicketRepository;
+    private final MetricsLedger metricsLedger;
+    private final OrderFactStore orderFactStore;
+    private final CustomerSummaryService customerSummaryService;
 
     @Transactional(readOnly = true)
-    public Map<String, Object> getDashboardStats(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
+    public Map<String, Object> getDashboardStats(Long userId, User.UserRole role) {
         Map<String, Object> stats = new HashMap<>();
 
-        if ("ADMIN".equals(user.getRole().name())) {
+        if (role == User.UserRole.ADMIN) {
             // Admin sees everything
-            stats.put("totalProducts", productRepository.count());
-            stats.put("pendingOrders", orderRepository.countByStatus(Order.OrderStatus.PENDING));
-            stats.put("pendingPrescriptions", prescriptionRepository.countByStatus(Prescription.PrescriptionStatus.PENDING));
-            stats.put("supportTickets", supportTicketRepository.countByStatus(SupportTicket.TicketStatus.OPEN));  // ← CHANGED
-            stats.put("totalUsers", userRepository.count());
-            stats.put("lowStock", productRepository.countByStockQuantityLessThan(10));
-            stats.put("totalOrders", orderRepository.count());
-            stats.put("totalRevenue", orderRepository.sumTotalAmount());
-
-        } else if ("PHARMACIST".equals(user.getRole().name())) {
+            stats.put("totalProducts", metricsLedger.totalProducts());
+            stats.put("pendingOrders", metricsLedger.ordersWithStatus(Order.OrderStatus.PENDING));
+            stats.put("pendingPrescriptions", metricsLedger.prescriptionsWithStatus(Prescription.PrescriptionStatus.PENDING));
+            stats.put("supportTickets", metricsLedger.ticketsWithStatus(SupportTicket.TicketStatus.OPEN));
+            stats.put("totalUsers", metricsLedger.totalUsers());
+            stats.put("lowStock", metricsLedger.lowStockProducts());
+            stats.put("totalOrders", metricsLedger.totalOrders());
+            stats.put("totalRevenue", metricsLedger.deliveredRevenue());
+
+        } else if (role == User.UserRole.PHARMACIST) {
             // Pharmacist sees operational data
-            stats.put("pendingPrescriptions", prescriptionRepository.countByStatus(Prescription.PrescriptionStatus.PENDING));
-            stats.put("pendingOrders", orderRepository.countByStatus(Order.OrderStatus.PENDING));
-            stats.put("supportTickets", supportTicketRepository.countByStatus(SupportTicket.TicketStatus.OPEN));  // ← CHANGED
-            stats.put("lowStock", productRepository.countByStockQuantityLessThan(10));
-            stats.put("totalProducts", productRepository.count());
-            stats.put("processingOrders", orderRepository.countByStatus(Order.OrderStatus.PROCESSING));
+            stats.put("pendingPrescriptions", metricsLedger.prescriptionsWithStatus(Prescription.PrescriptionStatus.PENDING));
+            stats.put("pendingOrders", metricsLedger.ordersWithStatus(Order.OrderStatus.PENDING));
+            stats.put("supportTickets", metricsLedger.ticketsWithStatus(SupportTicket.TicketStatus.OPEN));
+            stats.put("lowStock", metricsLedger.lowStockProducts());
+            stats.put("totalProducts", metricsLedger.totalProducts());
+            stats.put("processingOrders", metricsLedger.ordersWithStatus(Order.OrderStatus.PROCESSING));
 
         } else {
-            // Customer sees their own data
-            stats.put("myOrders", orderRepository.countByUserId(user.getId()));
-            stats.put("pendingOrders", orderRepository.countByUserIdAndStatus(user.getId(), Order.OrderStatus.PENDING));
-            stats.put("myPrescriptions", prescriptionRepository.countByUserId(user.getId()));
-            stats.put("pendingPrescriptions", prescriptionRepository.countByUserIdAndStatus(user.getId(), Prescription.PrescriptionStatus.PENDING));
-            stats.put("totalProducts", productRepository.count());
-            stats.put("myTickets", supportTicketRepository.countByUserId(user.getId()));
+            // Customer sees their own data, read from their summary row
+            CustomerSummary summary = customerSummaryService.getSummary(userId);
+            stats.put("myOrders", summary.totalOrders());
+            stats.put("pendingOrders", summary.getPendingOrders());
+            stats.put("myPrescriptions", summary.totalPrescriptions());
+            stats.put("pendingPrescriptions", summary.getPendingPrescriptions());
+            stats.put("totalProducts", metricsLedger.totalProducts());
+            stats.put("myTickets", summary.totalTickets());
+            stats.put("openTickets", summary.getOpenTickets() + summary.getInProgressTickets());
+            stats.put("lifetimeSpend", summary.getLifetimeSpend());
         }
 
         return stats;
     }
 
-    @Transactional(readOnly = true)
     public Map<String, Object> getAnalytics() {
         Map<String, Object> analytics = new HashMap<>();
 
         // Sales Analytics
         Map<String, Object> salesData = new HashMap<>();
-        salesData.put("totalRevenue", orderRepository.sumTotalAmount());
-        salesData.put("totalOrders", orderRepository.count());
-        salesData.put("averageOrderValue", orderRepository.averageOrderAmount());
-        salesData.put("pendingOrders", orderRepository.countByStatus(Order.OrderStatus.PENDING));
-        salesData.put("completedOrders", orderRepository.countByStatus(Order.OrderStatus.DELIVERED));
+        salesData.put("totalRevenue", metricsLedger.deliveredRevenue());
+        salesData.put("totalOrders", metricsLedger.totalOrders());
+        salesData.put("averageOrderValue", metricsLedger.averageOrderValue());
+        salesData.put("pendingOrders", metricsLedger.ordersWithStatus(Order.OrderStatus.PENDING));
+        salesData.put("completedOrders", metricsLedger.ordersWithStatus(Order.OrderStatus.DELIVERED));
+        long now = System.currentTimeMillis();
+        long weekAgo = OrderFactStore.toMillis(LocalDateTime.now().minusDays(7));
+        long monthAgo = OrderFactStore.toMillis(LocalDateTime.now().minusDays(30));
+        salesData.put("ordersLast7Days", orderFactStore.orderTotals(weekAgo, now + 1).totalCount());
+        OrderFactStore.LineTotals lastMonth = orderFactStore.lineTotals(monthAgo, now + 1);
+        salesData.put("unitsSoldLast30Days", lastMonth.units());
+        salesData.put("salesLast30Days", lastMonth.revenue());
         analytics.put("sales", salesData);
 
         // Inventory Analytics
         Map<String, Object> inventoryData = new HashMap<>();
-        inventoryData.put("totalProducts", productRepository.count());
-        inventoryData.put("lowStockProducts", productRepository.countByStockQuantityLessThan(10));
-        inventoryData.put("outOfStock", productRepository.countByStockQuantity(0));
-        inventoryData.put("totalValue", productRepository.sumInventoryValue());
+        inventoryData.put("totalProducts", metricsLedger.totalProducts());
+        inventoryData.put("lowStockProducts", metricsLedger.lowStockProducts());
+        inventoryData.put("outOfStock", metricsLedger.outOfStockProducts());
+        inventoryData.put("totalValue", metricsLedger.inventoryValue());
         analytics.put("inventory", inventoryData);
 
         // User Analytics
         Map<String, Object> userData = new HashMap<>();
-        userData.put("totalUsers", userRepository.count());
-        userData.put("admins", userRepository.countByRole(User.UserRole.ADMIN));
-        userData.put("pharmacists", userRepository.countByRole(User.UserRole.PHARMACIST));
-        userData.put("customers", userRepository.countByRole(User.UserRole.CUSTOMER));
+        userData.put("totalUsers", metricsLedger.totalUsers());
+        userData.put("admins", metricsLedger.usersWithRole(User.UserRole.ADMIN));
+        userData.put("pharmacists", metricsLedger.usersWithRole(User.UserRole.PHARMACIST));
+        userData.put("customers", metricsLedger.usersWithRole(User.UserRole.CUSTOMER));
         analytics.put("users", userData);
 
         // Prescription Analytics
         Map<String, Object> prescriptionData = new HashMap<>();
-        prescriptionData.put("totalPrescriptions", prescriptionRepository.count());
-        prescriptionData.put("pending", prescriptionRepository.countByStatus(Prescription.PrescriptionStatus.PENDING));
-        prescriptionData.put("approved", prescriptionRepository.countByStatus(Prescription.PrescriptionStatus.APPROVED));
-        prescriptionData.put("rejected", prescriptionRepository.countByStatus(Prescription.PrescriptionStatus.REJECTED));
+        prescriptionData.put("totalPrescriptions", metricsLedger.totalPrescriptions());
+        prescriptionData.put("pending", metricsLedger.prescriptionsWithStatus(Prescription.PrescriptionStatus.PENDING));
+        prescriptionData.put("approved", metricsLedger.prescriptionsWithStatus(Prescription.PrescriptionStatus.APPROVED));
+        prescriptionData.put("rejected", metricsLedger.prescriptionsWithStatus(Prescription.PrescriptionStatus.REJECTED));
         analytics.put("prescriptions", prescriptionData);
 
         // Support Analytics
         Map<String, Object> supportData = new HashMap<>();
-        supportData.put("totalTickets", supportTicketRepository.count());
-        supportData.put("openTickets", supportTicketRepository.countByStatus(SupportTicket.TicketStatus.OPEN));  // ← CHANGED
-        supportData.put("resolvedTickets", supportTicketRepository.countByStatus(SupportTicket.TicketStatus.RESOLVED));  // ← CHANGED
+        supportData.put("totalTickets", metricsLedger.totalTickets());
+        supportData.put("openTickets", metricsLedger.ticketsWithStatus(SupportTicket.TicketStatus.OPEN));
+        supportData.put("resolvedTickets", metricsLedger.ticketsWithStatus(SupportTicket.TicketStatus.RESOLVED));
         analytics.put("support", supportData);
 
         return analytics;
     }
-}
\ No newline at end of file
+}
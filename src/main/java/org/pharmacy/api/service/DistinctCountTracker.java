@@ -0,0 +1,204 @@
+package org.pharmacy.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.repository.OrderRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Distinct active users, purchasers and products sold per category, by day, in {@link HyperLogLog}s.
+ *
+ * Each of the last {@value #RETAINED_DAYS} days has one sketch of users who logged in or ordered, one
+ * of users who ordered and one per category of products ordered. Daily and monthly figures merge the
+ * sketches of the days they cover instead of running {@code COUNT(DISTINCT)} over orders, and the
+ * per-day sketches can be exported and merged with those of other nodes. Logins are not stored, so
+ * after a restart active users are seeded from purchasers only.
+ */
+@Component
+@RequiredArgsConstructor
+public class DistinctCountTracker {
+
+    public static final int RETAINED_DAYS = 30;
+
+    private static final String ACTIVE_USERS = "activeUsers";
+    private static final String PURCHASERS = "purchasers";
+    private static final String PRODUCTS = "products:";
+    private static final String UNCATEGORIZED = "Uncategorized";
+
+    private final OrderRepository orderRepository;
+
+    private final Map<LocalDate, Map<String, HyperLogLog>> days = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        LocalDateTime since = firstRetainedDay(LocalDate.now()).atStartOfDay();
+        try (Stream<Object[]> rows = orderRepository.streamBuyersSince(since)) {
+            rows.forEach(row -> {
+                LocalDate day = ((LocalDateTime) row[1]).toLocalDate();
+                recordPurchase(day, (Long) row[0], (Long) row[2], (String) row[3]);
+            });
+        }
+        System.out.println("🔢 Distinct counts seeded for " + days.size() + " days");
+    }
+
+    public void recordLogin(Long userId) {
+        add(LocalDate.now(), ACTIVE_USERS, userId);
+    }
+
+    /**
+     * Count the buyer and the products of an order once it commits.
+     *
+     * @param categories category of every ordered product, keyed by product id
+     */
+    public void recordOrderAfterCommit(Long userId, Map<Long, String> categories) {
+        Map<Long, String> ordered = new HashMap<>(categories);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                LocalDate today = LocalDate.now();
+                ordered.forEach((productId, category) -> recordPurchase(today, userId, productId, category));
+            }
+        });
+    }
+
+    /**
+     * Daily (today) and monthly (last {@value #RETAINED_DAYS} days) active users and purchasers.
+     */
+    public Map<String, Long> userCounts() {
+        return userCounts(days);
+    }
+
+    /**
+     * Distinct products ordered over the last {@value #RETAINED_DAYS} days, per category.
+     */
+    public Map<String, Long> productsSoldByCategory() {
+        return productsSoldByCategory(days);
+    }
+
+    /**
+     * Every retained sketch, base64 encoded, keyed by ISO date and then by sketch name.
+     */
+    public Map<String, Map<String, String>> export() {
+        Map<String, Map<String, String>> exported = new TreeMap<>();
+        days.forEach((day, sketches) -> {
+            Map<String, String> encoded = new TreeMap<>();
+            sketches.forEach((name, sketch) -> encoded.put(name, Base64.getEncoder().encodeToString(sketch.toBytes())));
+            exported.put(day.toString(), encoded);
+        });
+        return exported;
+    }
+
+    /**
+     * User counts and products sold per category over this node's sketches merged with other nodes'.
+     *
+     * @param peers one {@link #export()} result per other node
+     */
+    public Map<String, Object> mergedCounts(List<Map<String, Map<String, String>>> peers) {
+        Map<LocalDate, Map<String, HyperLogLog>> merged = new HashMap<>();
+        days.forEach((day, sketches) -> sketches.forEach((name, sketch) -> mergeInto(merged, day, name, sketch)));
+        for (Map<String, Map<String, String>> peer : peers) {
+            peer.forEach((date, sketches) -> {
+                LocalDate day;
+                try {
+                    day = LocalDate.parse(date);
+                } catch (DateTimeParseException e) {
+                    throw new RuntimeException("Invalid sketch date: " + date);
+                }
+                sketches.forEach((name, encoded) -> {
+                    byte[] bytes;
+                    try {
+                        bytes = Base64.getDecoder().decode(encoded);
+                    } catch (IllegalArgumentException e) {
+                        throw new RuntimeException("Corrupt distinct count sketch");
+                    }
+                    mergeInto(merged, day, name, HyperLogLog.fromBytes(bytes));
+                });
+            });
+        }
+
+        Map<String, Object> counts = new HashMap<>(userCounts(merged));
+        counts.put("distinctProductsSoldByCategory", productsSoldByCategory(merged));
+        return counts;
+    }
+
+    private void recordPurchase(LocalDate day, Long userId, Long productId, String category) {
+        add(day, ACTIVE_USERS, userId);
+        add(day, PURCHASERS, userId);
+        add(day, PRODUCTS + (category == null ? UNCATEGORIZED : category), productId);
+    }
+
+    private void add(LocalDate day, String name, Long id) {
+        LocalDate today = LocalDate.now();
+        if (day.isBefore(firstRetainedDay(today))) {
+            return;
+        }
+        Map<String, HyperLogLog> sketches = days.get(day);
+        if (sketches == null) {
+            sketches = days.computeIfAbsent(day, d -> new ConcurrentHashMap<>());
+            // A new day is the only time the window moves, so drop what fell out of it
+            days.keySet().removeIf(retained -> retained.isBefore(firstRetainedDay(today)));
+        }
+        sketches.computeIfAbsent(name, n -> new HyperLogLog()).add(id);
+    }
+
+    private static Map<String, Long> userCounts(Map<LocalDate, Map<String, HyperLogLog>> days) {
+        LocalDate today = LocalDate.now();
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("dailyActiveUsers", distinct(days, ACTIVE_USERS, today));
+        counts.put("monthlyActiveUsers", distinct(days, ACTIVE_USERS, firstRetainedDay(today)));
+        counts.put("dailyActivePurchasers", distinct(days, PURCHASERS, today));
+        counts.put("monthlyActivePurchasers", distinct(days, PURCHASERS, firstRetainedDay(today)));
+        return counts;
+    }
+
+    private static Map<String, Long> productsSoldByCategory(Map<LocalDate, Map<String, HyperLogLog>> days) {
+        LocalDate from = firstRetainedDay(LocalDate.now());
+        Map<String, HyperLogLog> byCategory = new TreeMap<>();
+        days.forEach((day, sketches) -> {
+            if (!day.isBefore(from)) {
+                sketches.forEach((name, sketch) -> {
+                    if (name.startsWith(PRODUCTS)) {
+                        byCategory.computeIfAbsent(name.substring(PRODUCTS.length()), n -> new HyperLogLog()).merge(sketch);
+                    }
+                });
+            }
+        });
+
+        Map<String, Long> counts = new TreeMap<>();
+        byCategory.forEach((category, sketch) -> counts.put(category, sketch.estimate()));
+        return counts;
+    }
+
+    private static long distinct(Map<LocalDate, Map<String, HyperLogLog>> days, String name, LocalDate from) {
+        HyperLogLog union = new HyperLogLog();
+        days.forEach((day, sketches) -> {
+            HyperLogLog sketch = sketches.get(name);
+            if (sketch != null && !day.isBefore(from)) {
+                union.merge(sketch);
+            }
+        });
+        return union.estimate();
+    }
+
+    private static void mergeInto(Map<LocalDate, Map<String, HyperLogLog>> target, LocalDate day, String name,
+                                  HyperLogLog sketch) {
+        target.computeIfAbsent(day, d -> new HashMap<>()).computeIfAbsent(name, n -> new HyperLogLog()).merge(sketch);
+    }
+
+    private static LocalDate firstRetainedDay(LocalDate today) {
+        return today.minusDays(RETAINED_DAYS - 1);
+    }
+}
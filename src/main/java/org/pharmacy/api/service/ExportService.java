@@ -0,0 +1,205 @@
+package org.pharmacy.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.Product;
+import org.pharmacy.api.repository.OrderRepository;
+import org.pharmacy.api.repository.PaymentRepository;
+import org.pharmacy.api.repository.ProductRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Full-table exports written row by row as NDJSON or CSV.
+ *
+ * Rows come from forward-only result streams with a fixed fetch size, and each one is written and
+ * dropped before the next is read, so memory use does not grow with the table. Orders and payments
+ * are read as plain column tuples, which skips the eager associations their entities would load;
+ * products are read as entities and detached once written.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final String[] ORDER_COLUMNS = {"orderId", "userId", "status", "totalAmount", "paymentMethod",
+            "shippingAddress", "createdAt", "productId", "productName", "quantity", "price", "subtotal"};
+    private static final String[] PRODUCT_COLUMNS = {"id", "name", "brand", "category", "price",
+            "prescriptionRequired", "stockQuantity", "reorderLevel", "createdAt", "updatedAt"};
+    private static final String[] PAYMENT_COLUMNS = {"id", "orderId", "userId", "amount", "paymentMethod",
+            "status", "transactionId", "createdAt"};
+
+    private static final int ORDER_FIELDS = 7;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final PaymentRepository paymentRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * One NDJSON object per order with its lines nested, or one CSV row per order line.
+     */
+    @Transactional(readOnly = true)
+    public void exportOrders(OutputStream out, Format format) throws IOException {
+        Writer writer = open(out);
+        if (format == Format.CSV) {
+            writeCsv(writer, ORDER_COLUMNS);
+        }
+
+        try (Stream<Object[]> lines = orderRepository.streamOrderLines()) {
+            Map<String, Object> order = null;
+            List<Map<String, Object>> items = null;
+            Iterator<Object[]> it = lines.iterator();
+            while (it.hasNext()) {
+                Object[] line = it.next();
+                if (format == Format.CSV) {
+                    writeCsv(writer, line);
+                    continue;
+                }
+
+                // Lines of one order are adjacent, so an order is complete when the id changes
+                if (order == null || !order.get("id").equals(line[0])) {
+                    if (order != null) {
+                        writeJson(writer, order);
+                    }
+                    order = new LinkedHashMap<>();
+                    order.put("id", line[0]);
+                    for (int i = 1; i < ORDER_FIELDS; i++) {
+                        order.put(ORDER_COLUMNS[i], line[i]);
+                    }
+                    items = new ArrayList<>();
+                    order.put("items", items);
+                }
+                if (line[ORDER_FIELDS] != null) {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    for (int i = ORDER_FIELDS; i < ORDER_COLUMNS.length; i++) {
+                        item.put(ORDER_COLUMNS[i], line[i]);
+                    }
+                    items.add(item);
+                }
+            }
+            if (order != null) {
+                writeJson(writer, order);
+            }
+        }
+        writer.flush();
+    }
+
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream out, Format format) throws IOException {
+        Writer writer = open(out);
+        if (format == Format.CSV) {
+            writeCsv(writer, PRODUCT_COLUMNS);
+        }
+
+        try (Stream<Product> products = productRepository.streamAll()) {
+            Iterator<Product> it = products.iterator();
+            while (it.hasNext()) {
+                Product product = it.next();
+                if (format == Format.CSV) {
+                    writeCsv(writer, new Object[] {product.getId(), product.getName(), product.getBrand(),
+                            product.getCategory(), product.getPrice(), product.getPrescriptionRequired(),
+                            product.getStockQuantity(), product.getReorderLevel(), product.getCreatedAt(),
+                            product.getUpdatedAt()});
+                } else {
+                    writeJson(writer, product);
+                }
+                // Keep the persistence context empty however many rows go by
+                entityManager.detach(product);
+            }
+        }
+        writer.flush();
+    }
+
+    @Transactional(readOnly = true)
+    public void exportPayments(OutputStream out, Format format) throws IOException {
+        Writer writer = open(out);
+        if (format == Format.CSV) {
+            writeCsv(writer, PAYMENT_COLUMNS);
+        }
+
+        try (Stream<Object[]> rows = paymentRepository.streamRows()) {
+            Iterator<Object[]> it = rows.iterator();
+            while (it.hasNext()) {
+                Object[] row = it.next();
+                if (format == Format.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    Map<String, Object> payment = new LinkedHashMap<>();
+                    for (int i = 0; i < PAYMENT_COLUMNS.length; i++) {
+                        payment.put(PAYMENT_COLUMNS[i], row[i]);
+                    }
+                    writeJson(writer, payment);
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private static Writer open(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private void writeJson(Writer writer, Object value) throws IOException {
+        writer.write(objectMapper.writeValueAsString(value));
+        writer.write('\n');
+    }
+
+    private static void writeCsv(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(escapeCsv(values[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Getter
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public static Format parse(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid format. Use ndjson or csv");
+            }
+        }
+    }
+}
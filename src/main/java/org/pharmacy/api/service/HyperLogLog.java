@@ -0,0 +1,128 @@
+package org.pharmacy.api.service;
+
+import java.util.Arrays;
+
+/**
+ * Approximate count of distinct ids in 4 KB, about 1.6% standard error at any cardinality.
+ *
+ * Each id is hashed to 64 bits; the top {@value #PRECISION} bits pick a register and the register
+ * keeps the longest run of leading zeros seen in the remaining bits. Merging takes the register-wise
+ * maximum, so the union of two sketches (other days, other nodes) is exact with respect to the
+ * sketches themselves and adding an id twice never changes anything. The estimate comes from the
+ * histogram of register values (Ertl's improved estimator), which has no bias where the classic
+ * estimator hands over from linear counting, around two to five times the register count.
+ */
+final class HyperLogLog {
+
+    static final int PRECISION = 12;
+
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int MAX_RANK = 64 - PRECISION + 1;
+    private static final double ALPHA = 1 / (2 * Math.log(2));
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    synchronized void add(long id) {
+        long hash = mix(id);
+        int register = (int) (hash >>> (64 - PRECISION));
+        // The guard bit caps the rank for hashes whose remaining bits are all zero
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    void merge(HyperLogLog other) {
+        byte[] snapshot = other.snapshot();
+        synchronized (this) {
+            for (int i = 0; i < REGISTERS; i++) {
+                registers[i] = (byte) Math.max(registers[i], snapshot[i]);
+            }
+        }
+    }
+
+    synchronized long estimate() {
+        int[] histogram = new int[MAX_RANK + 1];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        if (histogram[0] == REGISTERS) {
+            return 0;
+        }
+
+        double z = REGISTERS * tau(1 - (double) histogram[MAX_RANK] / REGISTERS);
+        for (int rank = MAX_RANK - 1; rank >= 1; rank--) {
+            z = 0.5 * (z + histogram[rank]);
+        }
+        z += REGISTERS * sigma((double) histogram[0] / REGISTERS);
+        return Math.round(ALPHA * REGISTERS * REGISTERS / z);
+    }
+
+    byte[] toBytes() {
+        byte[] snapshot = snapshot();
+        byte[] encoded = new byte[2 + REGISTERS];
+        encoded[0] = FORMAT_VERSION;
+        encoded[1] = PRECISION;
+        System.arraycopy(snapshot, 0, encoded, 2, REGISTERS);
+        return encoded;
+    }
+
+    static HyperLogLog fromBytes(byte[] encoded) {
+        if (encoded.length != 2 + REGISTERS || encoded[0] != FORMAT_VERSION || encoded[1] != PRECISION) {
+            throw new RuntimeException("Incompatible distinct count sketch");
+        }
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < REGISTERS; i++) {
+            byte register = encoded[2 + i];
+            if (register < 0 || register > MAX_RANK) {
+                throw new RuntimeException("Corrupt distinct count sketch");
+            }
+            sketch.registers[i] = register;
+        }
+        return sketch;
+    }
+
+    private synchronized byte[] snapshot() {
+        return Arrays.copyOf(registers, REGISTERS);
+    }
+
+    private static double sigma(double x) {
+        if (x == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+
+    private static long mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,503 @@
+package org.pharmacy.api.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.repository.ProductRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory owner of sellable stock.
+ *
+ * Every product has an available count (what can still be reserved), a reserved count (held by open
+ * orders, still on the shelf) and a pending delta (what has been committed in memory but not yet
+ * written to {@code products.stock_quantity}). Available plus reserved is the stock on hand; minus
+ * the pending delta it is what the engine believes the column holds. Counts live in
+ * primitive open-addressing maps split over lock stripes, so checkouts on different products never
+ * contend and checkouts on the same product hold a lock for a few array writes instead of a row lock
+ * for a whole transaction. Pending deltas are flushed to the database in one batch on a fixed delay.
+ *
+ * Products are loaded lazily on first use. Every {@code inventory.reconcile-interval-ms} the column is
+ * read back and any difference from what the engine believes it holds, i.e. stock written by another
+ * node or by hand, is added to the available count. With several nodes a unit can therefore be sold
+ * twice only within one flush plus one reconcile interval.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryReservationEngine {
+
+    private static final int STRIPE_COUNT = 64;
+    private static final int RECONCILE_BATCH = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductFacetIndex productFacetIndex;
+    private final MetricsLedger metricsLedger;
+
+    private final Stripe[] stripes = createStripes();
+    // Held while the column is written or read back, so a reconcile never sees a half-applied flush
+    private final Lock columnLock = new ReentrantLock();
+
+    /**
+     * Take stock for every product or for none of them.
+     *
+     * @return ids of products without enough available stock, empty when the reservation was taken
+     */
+    public List<Long> reserve(Map<Long, Integer> quantities) {
+        loadMissing(quantities.keySet());
+
+        int[] locked = quantities.keySet().stream()
+                .mapToInt(InventoryReservationEngine::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        List<Long> soldOut = new ArrayList<>();
+        for (int index : locked) {
+            stripes[index].lock.lock();
+        }
+        try {
+            List<Long> insufficient = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                if (stripeFor(entry.getKey()).availableOf(entry.getKey()) < entry.getValue()) {
+                    insufficient.add(entry.getKey());
+                }
+            }
+            if (!insufficient.isEmpty()) {
+                return insufficient;
+            }
+
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                Stripe stripe = stripeFor(entry.getKey());
+                int slot = stripe.find(entry.getKey());
+                stripe.available[slot] -= entry.getValue();
+                stripe.reserved[slot] += entry.getValue();
+                if (stripe.available[slot] <= 0 && entry.getValue() > 0) {
+                    soldOut.add(entry.getKey());
+                }
+            }
+        } finally {
+            for (int i = locked.length - 1; i >= 0; i--) {
+                stripes[locked[i]].lock.unlock();
+            }
+        }
+
+        soldOut.forEach(productId -> productFacetIndex.stockChanged(productId, false));
+        return List.of();
+    }
+
+    /**
+     * Turn a reservation into a real stock decrement that will be flushed to the database.
+     */
+    public void commit(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> update(productId, 0, -quantity, -quantity));
+    }
+
+    /**
+     * Give a reservation back without touching the database.
+     */
+    public void release(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> update(productId, quantity, -quantity, 0));
+    }
+
+    /**
+     * Put stock back on the shelf, e.g. a cancelled order or an admin stock addition.
+     */
+    public void restock(Map<Long, Integer> quantities) {
+        loadMissing(quantities.keySet());
+        quantities.forEach((productId, quantity) -> update(productId, quantity, 0, quantity));
+    }
+
+    /**
+     * Set the stock on hand of a product to an absolute value, recording the difference as a delta.
+     * Units reserved by open orders stay reserved, so at most {@code target - reserved} can be sold.
+     */
+    public void adjustTo(Long productId, int target) {
+        loadMissing(List.of(productId));
+
+        Stripe stripe = stripeFor(productId);
+        long before;
+        long after;
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(productId);
+            if (slot < 0) {
+                return;
+            }
+            before = stripe.available[slot];
+            long change = target - (before + stripe.reserved[slot]);
+            stripe.available[slot] += change;
+            stripe.pending[slot] += change;
+            after = stripe.available[slot];
+        } finally {
+            stripe.lock.unlock();
+        }
+        reportCrossing(productId, before, after);
+    }
+
+    /**
+     * Drop a deleted product so it can no longer be reserved.
+     */
+    public void forget(Long productId) {
+        Stripe stripe = stripeFor(productId);
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(productId);
+            if (slot >= 0) {
+                stripe.available[slot] = 0;
+                stripe.reserved[slot] = 0;
+                stripe.pending[slot] = 0;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public long getAvailable(Long productId) {
+        loadMissing(List.of(productId));
+
+        Stripe stripe = stripeFor(productId);
+        stripe.lock.lock();
+        try {
+            return stripe.availableOf(productId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Give a reservation back if the surrounding transaction rolls back.
+     */
+    public void releaseOnRollback(Map<Long, Integer> quantities) {
+        Map<Long, Integer> held = Map.copyOf(quantities);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                release(held);
+            }
+        });
+    }
+
+    /**
+     * Commit a reservation taken inside the surrounding transaction once it commits, or give it back
+     * if it rolls back.
+     */
+    public void commitAfterCommit(Map<Long, Integer> quantities) {
+        Map<Long, Integer> taken = Map.copyOf(quantities);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                commit(taken);
+            } else {
+                release(taken);
+            }
+        });
+    }
+
+    /**
+     * Set the stock on hand once the surrounding transaction has committed.
+     */
+    public void adjustAfterCommit(Long productId, int target) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                adjustTo(productId, target);
+            }
+        });
+    }
+
+    /**
+     * Restock once the surrounding transaction has committed.
+     */
+    public void restockAfterCommit(Map<Long, Integer> quantities) {
+        Map<Long, Integer> returned = Map.copyOf(quantities);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                restock(returned);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.flush-interval-ms:500}")
+    public void flush() {
+        columnLock.lock();
+        try {
+            flushPending();
+        } finally {
+            columnLock.unlock();
+        }
+    }
+
+    /**
+     * Read the stock column of every loaded product back and take up any difference from what this
+     * engine has written, e.g. stock sold by another node. Reserved units and unflushed deltas are
+     * left alone.
+     */
+    @Scheduled(initialDelayString = "${inventory.reconcile-interval-ms:10000}",
+            fixedDelayString = "${inventory.reconcile-interval-ms:10000}")
+    public void reconcile() {
+        List<Long> loaded = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.collectKeys(loaded);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        int corrected = 0;
+        for (int from = 0; from < loaded.size(); from += RECONCILE_BATCH) {
+            List<Long> batch = loaded.subList(from, Math.min(from + RECONCILE_BATCH, loaded.size()));
+            columnLock.lock();
+            try {
+                Map<Long, Integer> stock = productRepository.findStockQuantities(batch);
+                for (Map.Entry<Long, Integer> row : stock.entrySet()) {
+                    if (takeUpDrift(row.getKey(), row.getValue())) {
+                        corrected++;
+                    }
+                }
+            } finally {
+                columnLock.unlock();
+            }
+        }
+        if (corrected > 0) {
+            System.out.println("🔄 Stock of " + corrected + " products changed outside this node, reconciled");
+        }
+    }
+
+    private boolean takeUpDrift(Long productId, long column) {
+        Stripe stripe = stripeFor(productId);
+        long before;
+        long after;
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(productId);
+            if (slot < 0) {
+                return false;
+            }
+            long drift = column - (stripe.available[slot] + stripe.reserved[slot] - stripe.pending[slot]);
+            if (drift == 0) {
+                return false;
+            }
+            before = stripe.available[slot];
+            stripe.available[slot] += drift;
+            after = stripe.available[slot];
+        } finally {
+            stripe.lock.unlock();
+        }
+        reportCrossing(productId, before, after);
+        return true;
+    }
+
+    private void flushPending() {
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.drainPending(deltas);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            productRepository.adjustStock(deltas);
+        } catch (RuntimeException e) {
+            // Keep the deltas for the next run rather than losing them
+            deltas.forEach((productId, delta) -> update(productId, 0, 0, delta));
+            System.out.println("⚠️ Stock flush failed, will retry: " + e.getMessage());
+            return;
+        }
+        metricsLedger.stockFlushed(deltas);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void update(Long productId, long availableDelta, long reservedDelta, long pendingDelta) {
+        Stripe stripe = stripeFor(productId);
+        long before;
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(productId);
+            if (slot < 0) {
+                return;
+            }
+            before = stripe.available[slot];
+            stripe.available[slot] += availableDelta;
+            stripe.reserved[slot] += reservedDelta;
+            stripe.pending[slot] += pendingDelta;
+        } finally {
+            stripe.lock.unlock();
+        }
+        reportCrossing(productId, before, before + availableDelta);
+    }
+
+    /**
+     * Tell the facet index when a product runs out or comes back; called outside the stripe locks.
+     */
+    private void reportCrossing(Long productId, long before, long after) {
+        if ((before > 0) != (after > 0)) {
+            productFacetIndex.stockChanged(productId, after > 0);
+        }
+    }
+
+    private void loadMissing(Collection<Long> productIds) {
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            Stripe stripe = stripeFor(productId);
+            stripe.lock.lock();
+            try {
+                if (stripe.find(productId) < 0) {
+                    missing.add(productId);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        // Read outside the locks; if another thread loaded the product meanwhile its entry wins
+        Map<Long, Integer> stock = productRepository.findStockQuantities(missing);
+        stock.forEach((productId, quantity) -> {
+            Stripe stripe = stripeFor(productId);
+            stripe.lock.lock();
+            try {
+                stripe.insertIfAbsent(productId, quantity);
+            } finally {
+                stripe.lock.unlock();
+            }
+        });
+    }
+
+    private Stripe stripeFor(Long productId) {
+        return stripes[stripeIndex(productId)];
+    }
+
+    private static int stripeIndex(Long productId) {
+        return (int) (hash(productId) >>> 58) & (STRIPE_COUNT - 1);
+    }
+
+    private static long hash(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private static Stripe[] createStripes() {
+        Stripe[] created = new Stripe[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            created[i] = new Stripe();
+        }
+        return created;
+    }
+
+    /**
+     * Linear-probing long to (available, reserved, pending) map guarded by its own lock.
+     * Key 0 marks an empty slot, which is safe because product ids start at 1.
+     */
+    private static final class Stripe {
+        private static final long EMPTY = 0L;
+
+        final ReentrantLock lock = new ReentrantLock();
+        long[] keys = new long[16];
+        long[] available = new long[16];
+        long[] reserved = new long[16];
+        long[] pending = new long[16];
+        int size;
+
+        long availableOf(long key) {
+            int slot = find(key);
+            return slot < 0 ? 0 : available[slot];
+        }
+
+        int find(long key) {
+            int mask = keys.length - 1;
+            int slot = slotFor(key, mask);
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void insertIfAbsent(long key, long initialAvailable) {
+            if (find(key) >= 0) {
+                return;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int slot = place(key);
+            available[slot] = initialAvailable;
+            reserved[slot] = 0;
+            pending[slot] = 0;
+            size++;
+        }
+
+        void drainPending(Map<Long, Long> into) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY && pending[slot] != 0) {
+                    into.put(keys[slot], pending[slot]);
+                    pending[slot] = 0;
+                }
+            }
+        }
+
+        void collectKeys(List<Long> into) {
+            for (long key : keys) {
+                if (key != EMPTY) {
+                    into.add(key);
+                }
+            }
+        }
+
+        private int place(long key) {
+            int mask = keys.length - 1;
+            int slot = slotFor(key, mask);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldAvailable = available;
+            long[] oldReserved = reserved;
+            long[] oldPending = pending;
+
+            keys = new long[oldKeys.length * 2];
+            available = new long[oldKeys.length * 2];
+            reserved = new long[oldKeys.length * 2];
+            pending = new long[oldKeys.length * 2];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = place(oldKeys[i]);
+                    available[slot] = oldAvailable[i];
+                    reserved[slot] = oldReserved[i];
+                    pending[slot] = oldPending[i];
+                }
+            }
+        }
+
+        private static int slotFor(long key, int mask) {
+            long h = hash(key);
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
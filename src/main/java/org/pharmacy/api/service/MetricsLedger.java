@@ -0,0 +1,355 @@
+package org.pharmacy.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.Order;
+import org.pharmacy.api.model.Prescription;
+import org.pharmacy.api.model.SupportTicket;
+import org.pharmacy.api.model.User;
+import org.pharmacy.api.repository.OrderRepository;
+import org.pharmacy.api.repository.PrescriptionRepository;
+import org.pharmacy.api.repository.ProductRepository;
+import org.pharmacy.api.repository.SupportTicketRepository;
+import org.pharmacy.api.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dashboard counters kept in memory, so reading them never touches the database. Per-customer
+ * counts live in the {@link org.pharmacy.api.model.CustomerSummary} table instead.
+ *
+ * Counters are seeded from a handful of GROUP BY queries at startup and then moved by the write
+ * paths once their transaction commits: order status changes, prescription reviews, ticket status
+ * changes, user registration and role changes, and stock deltas as they are flushed to the stock
+ * column. A periodic reconcile rebuilds everything from SQL and swaps it in, which also corrects any
+ * update that raced with the previous rebuild.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsLedger {
+
+    public static final int LOW_STOCK_THRESHOLD = 10;
+
+    private final OrderRepository orderRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final SupportTicketRepository supportTicketRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+
+    private volatile Counters counters = new Counters();
+
+    // Seeded before the other startup listeners so that their corrections, e.g. expired reservations, land on top
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        reconcile();
+        System.out.println("📊 Metrics ledger seeded: " + totalOrders() + " orders, "
+                + totalProducts() + " products, " + totalUsers() + " users");
+    }
+
+    @Scheduled(initialDelayString = "${metrics.reconcile-interval-ms:300000}",
+            fixedDelayString = "${metrics.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Counters rebuilt = new Counters();
+
+        for (Object[] row : orderRepository.countGroupedByStatus()) {
+            Order.OrderStatus status = (Order.OrderStatus) row[0];
+            rebuilt.ordersByStatus.get(status).add((Long) row[1]);
+            if (status == Order.OrderStatus.DELIVERED) {
+                rebuilt.deliveredRevenue.add(((Number) row[2]).doubleValue());
+            }
+        }
+
+        for (Object[] row : prescriptionRepository.countGroupedByStatus()) {
+            rebuilt.prescriptionsByStatus.get((Prescription.PrescriptionStatus) row[0]).add((Long) row[1]);
+        }
+
+        for (Object[] row : supportTicketRepository.countGroupedByStatus()) {
+            rebuilt.ticketsByStatus.get((SupportTicket.TicketStatus) row[0]).add((Long) row[1]);
+        }
+
+        for (Object[] row : userRepository.countGroupedByRole()) {
+            rebuilt.usersByRole.get((User.UserRole) row[0]).add((Long) row[1]);
+        }
+
+        for (Object[] row : productRepository.findStockLevels()) {
+            Shelf shelf = new Shelf(row[1] == null ? 0 : ((Number) row[1]).doubleValue(),
+                    row[2] == null ? 0 : ((Number) row[2]).longValue());
+            rebuilt.shelves.put((Long) row[0], shelf);
+            rebuilt.shelve(shelf, 1);
+        }
+
+        counters = rebuilt;
+    }
+
+    // ---- write paths ----
+
+    /**
+     * Move an order between statuses once the surrounding transaction commits.
+     *
+     * @param from previous status, {@code null} for a new order
+     */
+    public void orderStatusChangedAfterCommit(Double amount, Order.OrderStatus from, Order.OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        double value = amount == null ? 0 : amount;
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                return;
+            }
+            Counters current = counters;
+            if (from != null) {
+                current.ordersByStatus.get(from).decrement();
+                if (from == Order.OrderStatus.DELIVERED) {
+                    current.deliveredRevenue.add(-value);
+                }
+            }
+            current.ordersByStatus.get(to).increment();
+            if (to == Order.OrderStatus.DELIVERED) {
+                current.deliveredRevenue.add(value);
+            }
+        });
+    }
+
+    /**
+     * @param from previous status, {@code null} for a new upload
+     */
+    public void prescriptionStatusChangedAfterCommit(Prescription.PrescriptionStatus from,
+                                                     Prescription.PrescriptionStatus to) {
+        if (from == to) {
+            return;
+        }
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                return;
+            }
+            Counters current = counters;
+            if (from != null) {
+                current.prescriptionsByStatus.get(from).decrement();
+            }
+            current.prescriptionsByStatus.get(to).increment();
+        });
+    }
+
+    /**
+     * @param from previous status, {@code null} for a new ticket
+     */
+    public void ticketStatusChangedAfterCommit(SupportTicket.TicketStatus from, SupportTicket.TicketStatus to) {
+        if (from == to) {
+            return;
+        }
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                return;
+            }
+            Counters current = counters;
+            if (from != null) {
+                current.ticketsByStatus.get(from).decrement();
+            }
+            current.ticketsByStatus.get(to).increment();
+        });
+    }
+
+    /**
+     * @param from previous role, {@code null} for a new user; {@code to} is {@code null} for a deleted one
+     */
+    public void userRoleChangedAfterCommit(User.UserRole from, User.UserRole to) {
+        if (from == to) {
+            return;
+        }
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                return;
+            }
+            Counters current = counters;
+            if (from != null) {
+                current.usersByRole.get(from).decrement();
+            }
+            if (to != null) {
+                current.usersByRole.get(to).increment();
+            }
+        });
+    }
+
+    public void productAddedAfterCommit(Long productId, Double price, Integer stockQuantity) {
+        Shelf shelf = new Shelf(price == null ? 0 : price, stockQuantity == null ? 0 : stockQuantity);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                Counters current = counters;
+                if (current.shelves.putIfAbsent(productId, shelf) == null) {
+                    current.shelve(shelf, 1);
+                }
+            }
+        });
+    }
+
+    public void priceChangedAfterCommit(Long productId, Double price) {
+        double value = price == null ? 0 : price;
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                Counters current = counters;
+                current.shelves.computeIfPresent(productId, (id, shelf) -> {
+                    current.shelve(shelf, -1);
+                    shelf.price = value;
+                    current.shelve(shelf, 1);
+                    return shelf;
+                });
+            }
+        });
+    }
+
+    public void productRemovedAfterCommit(Long productId) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                Counters current = counters;
+                Shelf shelf = current.shelves.remove(productId);
+                if (shelf != null) {
+                    current.shelve(shelf, -1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Apply stock deltas that have just been written to the stock column.
+     */
+    public void stockFlushed(Map<Long, Long> deltas) {
+        Counters current = counters;
+        deltas.forEach((productId, delta) -> current.shelves.computeIfPresent(productId, (id, shelf) -> {
+            current.shelve(shelf, -1);
+            shelf.stock += delta;
+            current.shelve(shelf, 1);
+            return shelf;
+        }));
+    }
+
+    // ---- reads ----
+
+    public long ordersWithStatus(Order.OrderStatus status) {
+        return counters.ordersByStatus.get(status).sum();
+    }
+
+    public long totalOrders() {
+        return sum(counters.ordersByStatus);
+    }
+
+    public double deliveredRevenue() {
+        return counters.deliveredRevenue.sum();
+    }
+
+    public double averageOrderValue() {
+        long delivered = ordersWithStatus(Order.OrderStatus.DELIVERED);
+        return delivered > 0 ? deliveredRevenue() / delivered : 0;
+    }
+
+    public long prescriptionsWithStatus(Prescription.PrescriptionStatus status) {
+        return counters.prescriptionsByStatus.get(status).sum();
+    }
+
+    public long totalPrescriptions() {
+        return sum(counters.prescriptionsByStatus);
+    }
+
+    public long ticketsWithStatus(SupportTicket.TicketStatus status) {
+        return counters.ticketsByStatus.get(status).sum();
+    }
+
+    public long totalTickets() {
+        return sum(counters.ticketsByStatus);
+    }
+
+    public long usersWithRole(User.UserRole role) {
+        return counters.usersByRole.get(role).sum();
+    }
+
+    public long totalUsers() {
+        return sum(counters.usersByRole);
+    }
+
+    public long totalProducts() {
+        return counters.shelves.mappingCount();
+    }
+
+    /**
+     * Products with fewer than {@value #LOW_STOCK_THRESHOLD} units, out-of-stock ones included.
+     */
+    public long lowStockProducts() {
+        return counters.lowStock.sum();
+    }
+
+    public long outOfStockProducts() {
+        return counters.outOfStock.sum();
+    }
+
+    public double inventoryValue() {
+        return counters.inventoryValue.sum();
+    }
+
+    private static long sum(Map<?, LongAdder> adders) {
+        long total = 0;
+        for (LongAdder adder : adders.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    private static <E extends Enum<E>> Map<E, LongAdder> adders(Class<E> type) {
+        Map<E, LongAdder> adders = new EnumMap<>(type);
+        for (E constant : type.getEnumConstants()) {
+            adders.put(constant, new LongAdder());
+        }
+        return adders;
+    }
+
+    /**
+     * One generation of counters; the enum maps are filled up front and never change shape.
+     */
+    private static final class Counters {
+        final Map<Order.OrderStatus, LongAdder> ordersByStatus = adders(Order.OrderStatus.class);
+        final DoubleAdder deliveredRevenue = new DoubleAdder();
+        final Map<Prescription.PrescriptionStatus, LongAdder> prescriptionsByStatus =
+                adders(Prescription.PrescriptionStatus.class);
+        final Map<SupportTicket.TicketStatus, LongAdder> ticketsByStatus = adders(SupportTicket.TicketStatus.class);
+        final Map<User.UserRole, LongAdder> usersByRole = adders(User.UserRole.class);
+
+        final ConcurrentHashMap<Long, Shelf> shelves = new ConcurrentHashMap<>();
+        final LongAdder lowStock = new LongAdder();
+        final LongAdder outOfStock = new LongAdder();
+        final DoubleAdder inventoryValue = new DoubleAdder();
+
+        /**
+         * Add ({@code sign = 1}) or take back ({@code sign = -1}) a product's share of the stock counters.
+         */
+        void shelve(Shelf shelf, int sign) {
+            if (shelf.stock < LOW_STOCK_THRESHOLD) {
+                lowStock.add(sign);
+            }
+            if (shelf.stock == 0) {
+                outOfStock.add(sign);
+            }
+            inventoryValue.add(sign * shelf.price * shelf.stock);
+        }
+    }
+
+    /**
+     * Price and stock column of one product; only touched inside {@code shelves.compute*}.
+     */
+    private static final class Shelf {
+        double price;
+        long stock;
+
+        Shelf(double price, long stock) {
+            this.price = price;
+            this.stock = stock;
+        }
+    }
+}
@@ -6,11 +6,14 @@
  */
 package org.pharmacy.api.service;
 
+import org.pharmacy.api.dto.CursorPage;
+import org.pharmacy.api.dto.PageCursor;
 import org.pharmacy.api.model.Notification;
 import org.pharmacy.api.model.User;
 import org.pharmacy.api.repository.NotificationRepository;
 import org.pharmacy.api.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -21,6 +24,7 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final NotificationStream notificationStream;
 
     @Transactional
     public Notification createNotification(User user, String title, String message, String type) {
@@ -36,6 +40,14 @@ public class NotificationService {
         // Mock sending notification (in real app, would send push/email/SMS)
         mockSendNotification(notification);
 
+        // Subscribers only see it once it is stored
+        Notification saved = notification;
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                notificationStream.publish(saved);
+            }
+        });
+
         return notification;
     }
 
@@ -46,16 +58,26 @@ public class NotificationService {
         System.out.println("   Message: " + notification.getMessage());
     }
 
-    public List<Notification> getUserNotifications(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return notificationRepository.findByUser(user);
+    public CursorPage<Notification> getUserNotifications(Long userId, String cursor, int limit) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        PageCursor after = PageCursor.decode(cursor);
+        List<Notification> rows = after == null
+                ? notificationRepository.findFirstPage(userId, Limit.of(limit + 1))
+                : notificationRepository.findPageAfter(userId, after.getCreatedAt(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, Notification::getCreatedAt, Notification::getId);
     }
 
-    public List<Notification> getUnreadNotifications(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return notificationRepository.findByUserAndRead(user, false);  // ← Changed from IsRead to Read
+    public CursorPage<Notification> getUnreadNotifications(Long userId, String cursor, int limit) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        PageCursor after = PageCursor.decode(cursor);
+        List<Notification> rows = after == null
+                ? notificationRepository.findFirstUnreadPage(userId, Limit.of(limit + 1))
+                : notificationRepository.findUnreadPageAfter(userId, after.getCreatedAt(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, Notification::getCreatedAt, Notification::getId);
     }
 
     @Transactional
@@ -0,0 +1,217 @@
+package org.pharmacy.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.exception.TooManyRequestsException;
+import org.pharmacy.api.model.Notification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes notifications to subscribed clients as Server-Sent Events.
+ *
+ * An open stream is an {@link SseEmitter} on an async servlet request, so an idle subscriber holds
+ * a socket but no thread. Emitters are kept per user in a fixed number of shards. Sends happen on a
+ * small pool of their own, never on the thread that committed the notification, and a comment line
+ * goes to every stream each {@code notifications.stream.heartbeat-ms} so proxies keep it open and
+ * dead connections are found. A notification that cannot be queued is dropped from the stream only;
+ * it is still stored and listed by the unread endpoint.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationStream {
+
+    private static final int SHARDS = 16;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${notifications.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${notifications.stream.max-per-user:5}")
+    private int maxPerUser;
+
+    @Value("${notifications.stream.reconnect-ms:3000}")
+    private long reconnectMillis;
+
+    @Value("${notifications.stream.push-threads:2}")
+    private int pushThreads;
+
+    @Value("${notifications.stream.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<Long, Set<SseEmitter>>[] shards = new ConcurrentHashMap[SHARDS];
+
+    private final LongAdder pushed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        AtomicInteger created = new AtomicInteger();
+        executor = new ThreadPoolExecutor(pushThreads, pushThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "notification-push-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, pool) -> dropped.increment());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        for (ConcurrentHashMap<Long, Set<SseEmitter>> shard : shards) {
+            shard.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+            shard.clear();
+        }
+    }
+
+    /**
+     * Open a stream for the user.
+     *
+     * @throws TooManyRequestsException when the user already has {@code notifications.stream.max-per-user} streams
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        shard(userId).compute(userId, (id, emitters) -> {
+            if (emitters == null) {
+                emitters = ConcurrentHashMap.newKeySet();
+            }
+            if (emitters.size() >= maxPerUser) {
+                throw new TooManyRequestsException("Too many open notification streams", reconnectMillis);
+            }
+            emitters.add(emitter);
+            return emitters;
+        });
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(error -> remove(userId, emitter));
+
+        // Tells EventSource how long to wait before reconnecting once the stream times out
+        send(userId, emitter, SseEmitter.event().comment("connected").reconnectTime(reconnectMillis));
+        return emitter;
+    }
+
+    /**
+     * Send the notification to every open stream of its user. The payload is serialized once and
+     * written by the push pool.
+     */
+    public void publish(Notification notification) {
+        Long userId = notification.getUser().getId();
+        Set<SseEmitter> emitters = shard(userId).get(userId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        String id = String.valueOf(notification.getId());
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload(notification));
+        } catch (JsonProcessingException e) {
+            System.out.println("❌ Could not serialize notification " + id + ": " + e.getMessage());
+            return;
+        }
+        executor.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                if (send(userId, emitter, SseEmitter.event().id(id).name("notification").data(json, MediaType.APPLICATION_JSON))) {
+                    pushed.increment();
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (ConcurrentHashMap<Long, Set<SseEmitter>> shard : shards) {
+            if (shard.isEmpty()) {
+                continue;
+            }
+            executor.execute(() -> shard.forEach((userId, emitters) -> {
+                for (SseEmitter emitter : emitters) {
+                    send(userId, emitter, SseEmitter.event().comment("heartbeat"));
+                }
+            }));
+        }
+    }
+
+    /**
+     * Open streams, users with at least one, and counts of pushed, dropped and disconnected.
+     */
+    public Map<String, Object> stats() {
+        long users = 0;
+        long streams = 0;
+        for (ConcurrentHashMap<Long, Set<SseEmitter>> shard : shards) {
+            for (Set<SseEmitter> emitters : shard.values()) {
+                users++;
+                streams += emitters.size();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("openStreams", streams);
+        stats.put("subscribedUsers", users);
+        stats.put("pushQueueDepth", executor.getQueue().size());
+        stats.put("pushed", pushed.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("disconnected", disconnected.sum());
+        return stats;
+    }
+
+    private boolean send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the container completes the request, this only forgets it
+            if (remove(userId, emitter)) {
+                disconnected.increment();
+            }
+            return false;
+        }
+    }
+
+    private boolean remove(Long userId, SseEmitter emitter) {
+        boolean[] removed = {false};
+        shard(userId).computeIfPresent(userId, (id, emitters) -> {
+            removed[0] = emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        return removed[0];
+    }
+
+    private static Map<String, Object> payload(Notification notification) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", notification.getId());
+        payload.put("title", notification.getTitle());
+        payload.put("message", notification.getMessage());
+        payload.put("type", notification.getType());
+        payload.put("read", notification.getRead());
+        payload.put("createdAt", notification.getCreatedAt());
+        return payload;
+    }
+
+    private ConcurrentHashMap<Long, Set<SseEmitter>> shard(Long userId) {
+        int hash = userId.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (SHARDS - 1)];
+    }
+}
@@ -0,0 +1,394 @@
+package org.pharmacy.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.Order;
+import org.pharmacy.api.model.OrderItem;
+import org.pharmacy.api.repository.OrderRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, column-oriented copy of every order and order line, for analytics scans.
+ *
+ * Orders and lines are two tables of primitive columns stored in fixed-size segments: epoch-millis
+ * creation time, status ordinal and total per order; order row, quantity and subtotal per line. A
+ * scan walks flat arrays instead of entities with boxed fields and leaves no garbage. Rows are only ever
+ * appended; the one mutable column is the order status, which is overwritten in place when an order
+ * moves on. The store is bulk-loaded at startup and then appended to as orders commit.
+ *
+ * A single writer lock serializes appends and status updates. Readers take no lock: a row becomes
+ * visible once the row count has been published, and segments are published before the count.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderFactStore {
+
+    private static final int SEGMENT_BITS = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+
+    private final OrderRepository orderRepository;
+
+    private final Object writeLock = new Object();
+    private final OrderIndex rowsByOrderId = new OrderIndex();
+
+    // Orders
+    private final LongColumn createdAt = new LongColumn();
+    private final ByteColumn statuses = new ByteColumn();
+    private final DoubleColumn totals = new DoubleColumn();
+    private volatile int orderCount;
+
+    // Lines
+    private final IntColumn lineOrderRows = new IntColumn();
+    private final IntColumn quantities = new IntColumn();
+    private final DoubleColumn subtotals = new DoubleColumn();
+    private volatile int lineCount;
+
+    // Loaded before pending reservations are restored, so orders cancelled on restore are updated here too
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void load() {
+        try (Stream<Object[]> lines = orderRepository.streamFactLines()) {
+            Iterator<Object[]> rows = lines.iterator();
+            Object[] row = rows.hasNext() ? rows.next() : null;
+            while (row != null) {
+                Long orderId = (Long) row[0];
+                Object[] first = row;
+                FactLines factLines = new FactLines();
+                while (row != null && orderId.equals(row[0])) {
+                    if (row[4] != null) {
+                        factLines.add((Integer) row[4], (Double) row[5]);
+                    }
+                    row = rows.hasNext() ? rows.next() : null;
+                }
+                append(orderId, (Order.OrderStatus) first[1], (Double) first[2], (LocalDateTime) first[3], factLines);
+            }
+        }
+        System.out.println("🧱 Order fact store loaded: " + orderCount + " orders, " + lineCount + " lines");
+    }
+
+    /**
+     * Append a new order and its lines once it commits; the order's items must be loaded.
+     */
+    public void appendAfterCommit(Order order) {
+        Long orderId = order.getId();
+        Order.OrderStatus status = order.getStatus();
+        Double total = order.getTotalAmount();
+        LocalDateTime created = order.getCreatedAt();
+        FactLines factLines = new FactLines();
+        for (OrderItem item : order.getItems()) {
+            factLines.add(item.getQuantity(), item.getSubtotal());
+        }
+
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                append(orderId, status, total, created, factLines);
+            }
+        });
+    }
+
+    public void statusChangedAfterCommit(Long orderId, Order.OrderStatus status) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                synchronized (writeLock) {
+                    int row = rowsByOrderId.get(orderId);
+                    if (row >= 0) {
+                        statuses.set(row, (byte) status.ordinal());
+                        // Republish so that scans, which read the count first, see the new status
+                        orderCount = orderCount;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Order count and order-total sum per status for orders created in {@code [fromMillis, toMillis)}.
+     */
+    public OrderTotals orderTotals(long fromMillis, long toMillis) {
+        int rows = orderCount;
+        long[] counts = new long[STATUSES.length];
+        double[] amounts = new double[STATUSES.length];
+
+        for (int segment = 0; segment * SEGMENT_SIZE < rows; segment++) {
+            long[] created = createdAt.segment(segment);
+            byte[] status = statuses.segment(segment);
+            double[] total = totals.segment(segment);
+            int end = Math.min(SEGMENT_SIZE, rows - segment * SEGMENT_SIZE);
+            for (int i = 0; i < end; i++) {
+                if (created[i] >= fromMillis && created[i] < toMillis) {
+                    counts[status[i]]++;
+                    amounts[status[i]] += total[i];
+                }
+            }
+        }
+        return new OrderTotals(counts, amounts);
+    }
+
+    /**
+     * Units and line subtotals of orders created in {@code [fromMillis, toMillis)} that are not cancelled.
+     */
+    public LineTotals lineTotals(long fromMillis, long toMillis) {
+        int rows = lineCount;
+        byte cancelled = (byte) Order.OrderStatus.CANCELLED.ordinal();
+        long units = 0;
+        double revenue = 0;
+
+        for (int segment = 0; segment * SEGMENT_SIZE < rows; segment++) {
+            int[] orderRows = lineOrderRows.segment(segment);
+            int[] quantity = quantities.segment(segment);
+            double[] subtotal = subtotals.segment(segment);
+            int end = Math.min(SEGMENT_SIZE, rows - segment * SEGMENT_SIZE);
+            for (int i = 0; i < end; i++) {
+                long created = createdAt.get(orderRows[i]);
+                if (created >= fromMillis && created < toMillis && statuses.get(orderRows[i]) != cancelled) {
+                    units += quantity[i];
+                    revenue += subtotal[i];
+                }
+            }
+        }
+        return new LineTotals(units, revenue);
+    }
+
+    public static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void append(Long orderId, Order.OrderStatus status, Double total, LocalDateTime created,
+                        FactLines factLines) {
+        synchronized (writeLock) {
+            // Orders committed while the store was loading may be seen twice
+            if (rowsByOrderId.get(orderId) >= 0) {
+                return;
+            }
+            int row = orderCount;
+            createdAt.set(row, created == null ? 0 : toMillis(created));
+            statuses.set(row, (byte) status.ordinal());
+            totals.set(row, total == null ? 0 : total);
+            rowsByOrderId.put(orderId, row);
+
+            int line = lineCount;
+            for (int i = 0; i < factLines.size; i++, line++) {
+                lineOrderRows.set(line, row);
+                quantities.set(line, factLines.quantities[i]);
+                subtotals.set(line, factLines.subtotals[i]);
+            }
+
+            // Publishing the counts makes the new rows visible to scans
+            lineCount = line;
+            orderCount = row + 1;
+        }
+    }
+
+    /**
+     * Result of {@link #orderTotals}, indexed by status.
+     */
+    public static final class OrderTotals {
+        private final long[] counts;
+        private final double[] amounts;
+
+        private OrderTotals(long[] counts, double[] amounts) {
+            this.counts = counts;
+            this.amounts = amounts;
+        }
+
+        public long count(Order.OrderStatus status) {
+            return counts[status.ordinal()];
+        }
+
+        public double amount(Order.OrderStatus status) {
+            return amounts[status.ordinal()];
+        }
+
+        public long totalCount() {
+            return Arrays.stream(counts).sum();
+        }
+    }
+
+    /**
+     * Result of {@link #lineTotals}.
+     */
+    public static final class LineTotals {
+        private final long units;
+        private final double revenue;
+
+        private LineTotals(long units, double revenue) {
+            this.units = units;
+            this.revenue = revenue;
+        }
+
+        public long units() {
+            return units;
+        }
+
+        public double revenue() {
+            return revenue;
+        }
+    }
+
+    /**
+     * The lines of one order, gathered before it is appended.
+     */
+    private static final class FactLines {
+        int[] quantities = new int[4];
+        double[] subtotals = new double[4];
+        int size;
+
+        void add(Integer quantity, Double subtotal) {
+            if (size == quantities.length) {
+                quantities = Arrays.copyOf(quantities, size * 2);
+                subtotals = Arrays.copyOf(subtotals, size * 2);
+            }
+            quantities[size] = quantity == null ? 0 : quantity;
+            subtotals[size] = subtotal == null ? 0 : subtotal;
+            size++;
+        }
+    }
+
+    /*
+     * Columns are directories of fixed-size segments. A new directory is published before any row in
+     * a new segment, and rows are published through the volatile counts above.
+     */
+
+    private static final class LongColumn {
+        private volatile long[][] segments = new long[0][];
+
+        long[] segment(int index) {
+            return segments[index];
+        }
+
+        long get(int row) {
+            return segments[row >>> SEGMENT_BITS][row & SEGMENT_MASK];
+        }
+
+        void set(int row, long value) {
+            int index = row >>> SEGMENT_BITS;
+            if (index == segments.length) {
+                long[][] grown = Arrays.copyOf(segments, index + 1);
+                grown[index] = new long[SEGMENT_SIZE];
+                segments = grown;
+            }
+            segments[index][row & SEGMENT_MASK] = value;
+        }
+    }
+
+    private static final class IntColumn {
+        private volatile int[][] segments = new int[0][];
+
+        int[] segment(int index) {
+            return segments[index];
+        }
+
+        void set(int row, int value) {
+            int index = row >>> SEGMENT_BITS;
+            if (index == segments.length) {
+                int[][] grown = Arrays.copyOf(segments, index + 1);
+                grown[index] = new int[SEGMENT_SIZE];
+                segments = grown;
+            }
+            segments[index][row & SEGMENT_MASK] = value;
+        }
+    }
+
+    private static final class DoubleColumn {
+        private volatile double[][] segments = new double[0][];
+
+        double[] segment(int index) {
+            return segments[index];
+        }
+
+        void set(int row, double value) {
+            int index = row >>> SEGMENT_BITS;
+            if (index == segments.length) {
+                double[][] grown = Arrays.copyOf(segments, index + 1);
+                grown[index] = new double[SEGMENT_SIZE];
+                segments = grown;
+            }
+            segments[index][row & SEGMENT_MASK] = value;
+        }
+    }
+
+    private static final class ByteColumn {
+        private volatile byte[][] segments = new byte[0][];
+
+        byte[] segment(int index) {
+            return segments[index];
+        }
+
+        byte get(int row) {
+            return segments[row >>> SEGMENT_BITS][row & SEGMENT_MASK];
+        }
+
+        void set(int row, byte value) {
+            int index = row >>> SEGMENT_BITS;
+            if (index == segments.length) {
+                byte[][] grown = Arrays.copyOf(segments, index + 1);
+                grown[index] = new byte[SEGMENT_SIZE];
+                segments = grown;
+            }
+            segments[index][row & SEGMENT_MASK] = value;
+        }
+    }
+
+    /**
+     * Linear-probing order id to row map, only touched under the writer lock.
+     * Key 0 marks an empty slot, which is safe because order ids start at 1.
+     */
+    private static final class OrderIndex {
+        private long[] keys = new long[1024];
+        private int[] rows = new int[1024];
+        private int size;
+
+        int get(long orderId) {
+            int mask = keys.length - 1;
+            for (int slot = slotFor(orderId, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == orderId) {
+                    return rows[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long orderId, int row) {
+            if ((size + 1) * 2 > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldRows = rows;
+                keys = new long[oldKeys.length * 2];
+                rows = new int[oldKeys.length * 2];
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != 0) {
+                        place(oldKeys[i], oldRows[i]);
+                    }
+                }
+            }
+            place(orderId, row);
+            size++;
+        }
+
+        private void place(long orderId, int row) {
+            int mask = keys.length - 1;
+            int slot = slotFor(orderId, mask);
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = orderId;
+            rows[slot] = row;
+        }
+
+        private static int slotFor(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -5,16 +5,25 @@
  */
 package org.pharmacy.api.service;
 
+import org.pharmacy.api.dto.CursorPage;
 import org.pharmacy.api.dto.OrderRequest;
+import org.pharmacy.api.dto.OrderSummary;
+import org.pharmacy.api.dto.PageCursor;
 import org.pharmacy.api.dto.OrderItemRequest;
 import org.pharmacy.api.model.*;
 import org.pharmacy.api.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +34,16 @@ public class OrderService {
     private final ProductRepository productRepository;
     private final PrescriptionRepository prescriptionRepository;
     private final NotificationService notificationService;
+    private final InventoryReservationEngine inventoryReservationEngine;
+    private final ReservationExpiryWheel reservationExpiryWheel;
+    private final ProductSuggester productSuggester;
+    private final MetricsLedger metricsLedger;
+    private final SalesRollupService salesRollupService;
+    private final QuantileTracker quantileTracker;
+    private final TopProductsTracker topProductsTracker;
+    private final DistinctCountTracker distinctCountTracker;
+    private final OrderFactStore orderFactStore;
+    private final CustomerSummaryService customerSummaryService;
 
     @Transactional
     public Order createOrder(OrderRequest request) {
@@ -47,19 +66,37 @@ public class OrderService {
             order.setPrescription(prescription);
         }
 
-        double totalAmount = 0.0;
-
+        // Merge duplicate lines so each product is checked and decremented once
+        Map<Long, Integer> requestedQuantities = new LinkedHashMap<>();
         for (OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found"));
+            requestedQuantities.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, Product> products = productRepository.findAllById(requestedQuantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        for (Long productId : requestedQuantities.keySet()) {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new RuntimeException("Product not found");
+            }
 
             if (product.getPrescriptionRequired() && request.getPrescriptionId() == null) {
                 throw new RuntimeException("Product requires prescription: " + product.getName());
             }
+        }
 
-            if (product.getStockQuantity() < itemRequest.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
+        // Held in memory until the order is paid for or its reservation expires
+        List<Long> insufficient = inventoryReservationEngine.reserve(requestedQuantities);
+        if (!insufficient.isEmpty()) {
+            throw new RuntimeException("Insufficient stock for product: " + products.get(insufficient.get(0)).getName());
+        }
+        inventoryReservationEngine.releaseOnRollback(requestedQuantities);
+
+        double totalAmount = 0.0;
+
+        for (OrderItemRequest itemRequest : request.getItems()) {
+            Product product = products.get(itemRequest.getProductId());
 
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -70,13 +107,22 @@ public class OrderService {
 
             order.getItems().add(orderItem);
             totalAmount += orderItem.getSubtotal();
-
-            product.setStockQuantity(product.getStockQuantity() - itemRequest.getQuantity());
-            productRepository.save(product);
         }
 
         order.setTotalAmount(totalAmount);
         order = orderRepository.save(order);
+        reservationExpiryWheel.holdAfterCommit(order.getId(), user.getId(), requestedQuantities);
+        productSuggester.recordSalesAfterCommit(requestedQuantities);
+        topProductsTracker.recordSalesAfterCommit(requestedQuantities);
+        Map<Long, String> categories = new HashMap<>();
+        products.forEach((productId, product) -> categories.put(productId, product.getCategory()));
+        distinctCountTracker.recordOrderAfterCommit(user.getId(), categories);
+        customerSummaryService.orderStatusChanged(user.getId(), totalAmount, null, Order.OrderStatus.PENDING);
+        metricsLedger.orderStatusChangedAfterCommit(totalAmount, null, Order.OrderStatus.PENDING);
+        salesRollupService.recordAfterCommit(order, Order.OrderStatus.PENDING);
+        orderFactStore.appendAfterCommit(order);
+        quantileTracker.recordOrderAfterCommit(totalAmount,
+                requestedQuantities.values().stream().mapToInt(Integer::intValue).sum());
 
         notificationService.createNotification(
                 user,
@@ -89,20 +135,25 @@ public class OrderService {
     }
 
     @Transactional(readOnly = true)
-    public List<Order> getUserOrders(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return orderRepository.findByUserId(userId);
+    public List<OrderSummary> getUserOrders(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return orderRepository.findSummariesByUserId(userId);
     }
 
     @Transactional(readOnly = true)
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    public CursorPage<OrderSummary> getOrders(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<OrderSummary> rows = after == null
+                ? orderRepository.findFirstPage(Limit.of(limit + 1))
+                : orderRepository.findPageAfter(after.getCreatedAt(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, OrderSummary::getCreatedAt, OrderSummary::getId);
     }
 
     @Transactional(readOnly = true)
     public Order getOrderById(Long id) {
-        return orderRepository.findById(id)
+        return orderRepository.findWithItemsById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
@@ -114,20 +165,41 @@ public class OrderService {
         try {
             Order.OrderStatus newStatus = Order.OrderStatus.valueOf(status.toUpperCase());
 
-            // If changing FROM delivered TO another status, return stock
-            if (oldStatus == Order.OrderStatus.DELIVERED && newStatus != Order.OrderStatus.DELIVERED) {
-                returnStockToInventory(order);
+            // PENDING means holding a reservation; an order whose stock was committed or returned has none
+            if (newStatus == Order.OrderStatus.PENDING && oldStatus != Order.OrderStatus.PENDING) {
+                throw new RuntimeException("Cannot move a " + oldStatus + " order back to PENDING");
             }
 
-            // If changing TO cancelled, return stock
-            if (newStatus == Order.OrderStatus.CANCELLED && oldStatus != Order.OrderStatus.CANCELLED) {
-                returnStockToInventory(order);
+            if (oldStatus == Order.OrderStatus.PENDING && newStatus == Order.OrderStatus.CANCELLED) {
+                releasePendingStock(order);
+            } else if (oldStatus == Order.OrderStatus.PENDING && newStatus != Order.OrderStatus.PENDING) {
+                // Unpaid orders only hold a reservation: commit it when the order moves on
+                if (!reservationExpiryWheel.settle(order.getId(), true)) {
+                    throw new RuntimeException("Order reservation has expired");
+                }
+            } else {
+                // If changing FROM delivered TO another status, return stock
+                if (oldStatus == Order.OrderStatus.DELIVERED && newStatus != Order.OrderStatus.DELIVERED) {
+                    returnStockToInventory(order);
+                }
+
+                // If changing TO cancelled, return stock
+                if (newStatus == Order.OrderStatus.CANCELLED && oldStatus != Order.OrderStatus.CANCELLED) {
+                    returnStockToInventory(order);
+                }
             }
 
             order.setStatus(newStatus);
             order.setUpdatedAt(LocalDateTime.now());
 
             order = orderRepository.save(order);
+            customerSummaryService.orderStatusChanged(order.getUser().getId(), order.getTotalAmount(),
+                    oldStatus, newStatus);
+            metricsLedger.orderStatusChangedAfterCommit(order.getTotalAmount(), oldStatus, newStatus);
+            if (oldStatus != newStatus) {
+                salesRollupService.recordAfterCommit(order, newStatus);
+                orderFactStore.statusChangedAfterCommit(order.getId(), newStatus);
+            }
 
             notificationService.createNotification(
                     order.getUser(),
@@ -150,12 +222,24 @@ public class OrderService {
             throw new RuntimeException("Cannot cancel delivered order");
         }
 
-        // Return stock to inventory
-        returnStockToInventory(order);
+        // Release the reservation of an unpaid order, return committed stock otherwise
+        if (order.getStatus() == Order.OrderStatus.PENDING) {
+            releasePendingStock(order);
+        } else if (order.getStatus() != Order.OrderStatus.CANCELLED) {
+            returnStockToInventory(order);
+        }
 
+        Order.OrderStatus oldStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CANCELLED);
         order.setUpdatedAt(LocalDateTime.now());
         orderRepository.save(order);
+        customerSummaryService.orderStatusChanged(order.getUser().getId(), order.getTotalAmount(),
+                oldStatus, Order.OrderStatus.CANCELLED);
+        metricsLedger.orderStatusChangedAfterCommit(order.getTotalAmount(), oldStatus, Order.OrderStatus.CANCELLED);
+        if (oldStatus != Order.OrderStatus.CANCELLED) {
+            salesRollupService.recordAfterCommit(order, Order.OrderStatus.CANCELLED);
+            orderFactStore.statusChangedAfterCommit(order.getId(), Order.OrderStatus.CANCELLED);
+        }
 
         notificationService.createNotification(
                 order.getUser(),
@@ -165,14 +249,25 @@ public class OrderService {
         );
     }
 
+    /**
+     * Release the reservation of a PENDING order being cancelled. Without one, stock only comes back
+     * here if no expiry pass is already giving it back: the order was moved back to PENDING before
+     * that was refused, and its units were committed.
+     */
+    private void releasePendingStock(Order order) {
+        if (!reservationExpiryWheel.settle(order.getId(), false) && !reservationExpiryWheel.isExpiring(order.getId())) {
+            returnStockToInventory(order);
+        }
+    }
+
     /**
      * Return stock to inventory when order is cancelled or status changed from delivered
      */
     private void returnStockToInventory(Order order) {
+        Map<Long, Integer> returned = new HashMap<>();
         for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-            productRepository.save(product);
+            returned.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
+        inventoryReservationEngine.restockAfterCommit(returned);
     }
 }
\ No newline at end of file
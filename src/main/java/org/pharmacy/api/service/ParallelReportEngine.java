@@ -0,0 +1,304 @@
+package org.pharmacy.api.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.Order;
+import org.pharmacy.api.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Ad-hoc sales reports over arbitrary date ranges, scanned in parallel.
+ *
+ * The order ids created in the range are split in halves until each piece spans at most
+ * {@code reports.adhoc.range-size} ids. Every piece is streamed in its own read-only transaction,
+ * and so its own session, on a dedicated fork/join pool, and the partial aggregates are merged on the
+ * way back up. A report runs under a time budget and can be cancelled by id; either way the scans
+ * stop at their next check. Each pool thread holds a connection while it scans, so the pool is kept
+ * small ({@code 0} threads means one per core) and only a few reports run at once.
+ */
+@Component
+@RequiredArgsConstructor
+public class ParallelReportEngine {
+
+    private static final int CHECK_EVERY_ROWS = 1024;
+    private static final int MAX_RANGE_DAYS = 3660;
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private static final String UNCATEGORIZED = "Uncategorized";
+
+    private final OrderRepository orderRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${reports.adhoc.threads:4}")
+    private int threads;
+
+    @Value("${reports.adhoc.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${reports.adhoc.range-size:20000}")
+    private long rangeSize;
+
+    @Value("${reports.adhoc.time-budget-ms:30000}")
+    private long timeBudgetMillis;
+
+    private final Map<String, Run> running = new ConcurrentHashMap<>();
+    private ForkJoinPool pool;
+    private Semaphore permits;
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        permits = new Semaphore(maxConcurrent);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running.values().forEach(run -> run.cancelled = true);
+        pool.shutdownNow();
+    }
+
+    /**
+     * Orders, units and revenue of order lines created between {@code from} and {@code to}, both
+     * inclusive, optionally for one product category.
+     *
+     * @param reportId optional caller-chosen id under which the report can be cancelled while it runs
+     */
+    public Map<String, Object> salesReport(LocalDate from, LocalDate to, String category, String reportId) {
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = from != null ? from : last.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (first.isAfter(last)) {
+            throw new RuntimeException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(first, last) >= MAX_RANGE_DAYS) {
+            throw new RuntimeException("Range too long, at most " + MAX_RANGE_DAYS + " days");
+        }
+        String filter = category == null || category.isBlank() ? null : category;
+
+        if (!permits.tryAcquire()) {
+            throw new RuntimeException("Too many ad-hoc reports running, try again later");
+        }
+        long started = System.nanoTime();
+        Run run = new Run(started + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis));
+        if (reportId != null && running.putIfAbsent(reportId, run) != null) {
+            permits.release();
+            throw new RuntimeException("Report already running: " + reportId);
+        }
+
+        try {
+            LocalDateTime start = first.atStartOfDay();
+            LocalDateTime end = last.plusDays(1).atStartOfDay();
+            Object[] ids = orderRepository.findIdRange(start, end).get(0);
+
+            Partial total = ids[0] == null
+                    ? new Partial()
+                    : await(run, new ScanTask(run, (Long) ids[0], (Long) ids[1], start, end, filter));
+
+            Map<String, Object> report = total.toReport();
+            report.put("from", first);
+            report.put("to", last);
+            report.put("category", filter);
+            report.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return report;
+        } finally {
+            if (reportId != null) {
+                running.remove(reportId, run);
+            }
+            permits.release();
+        }
+    }
+
+    /**
+     * @return false when no report with that id is running
+     */
+    public boolean cancel(String reportId) {
+        Run run = running.get(reportId);
+        if (run == null) {
+            return false;
+        }
+        run.cancelled = true;
+        return true;
+    }
+
+    private Partial await(Run run, ScanTask task) {
+        pool.execute(task);
+        try {
+            return task.get(Math.max(0, run.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            run.cancelled = true;
+            task.cancel(true);
+            throw new RuntimeException("Report exceeded its time budget of " + timeBudgetMillis + " ms");
+        } catch (InterruptedException e) {
+            run.cancelled = true;
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Report was interrupted");
+        } catch (CancellationException e) {
+            throw stopped(run);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw stopped(run);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Report failed: " + e.getCause().getMessage());
+        }
+    }
+
+    private RuntimeException stopped(Run run) {
+        return run.timedOut
+                ? new RuntimeException("Report exceeded its time budget of " + timeBudgetMillis + " ms")
+                : new RuntimeException("Report was cancelled");
+    }
+
+    private static final class Run {
+        private final long deadline;
+        private volatile boolean cancelled;
+        private volatile boolean timedOut;
+
+        Run(long deadline) {
+            this.deadline = deadline;
+        }
+
+        void checkActive() {
+            if (!cancelled && System.nanoTime() > deadline) {
+                timedOut = true;
+                cancelled = true;
+            }
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+    }
+
+    /**
+     * Scans the order ids {@code firstId..lastId}, splitting the range while it is too large.
+     */
+    private final class ScanTask extends RecursiveTask<Partial> {
+        private final Run run;
+        private final long firstId;
+        private final long lastId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final String category;
+
+        ScanTask(Run run, long firstId, long lastId, LocalDateTime start, LocalDateTime end, String category) {
+            this.run = run;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.start = start;
+            this.end = end;
+            this.category = category;
+        }
+
+        @Override
+        protected Partial compute() {
+            run.checkActive();
+            if (lastId - firstId < rangeSize) {
+                return scan();
+            }
+            long middle = firstId + (lastId - firstId) / 2;
+            ScanTask lower = new ScanTask(run, firstId, middle, start, end, category);
+            ScanTask upper = new ScanTask(run, middle + 1, lastId, start, end, category);
+            lower.fork();
+            Partial partial = upper.compute();
+            return partial.merge(lower.join());
+        }
+
+        private Partial scan() {
+            return readOnly.execute(status -> {
+                Partial partial = new Partial();
+                try (Stream<Object[]> lines = orderRepository.streamReportLines(firstId, lastId, start, end, category)) {
+                    Iterator<Object[]> rows = lines.iterator();
+                    long scanned = 0;
+                    while (rows.hasNext()) {
+                        if (++scanned % CHECK_EVERY_ROWS == 0) {
+                            run.checkActive();
+                        }
+                        partial.add(rows.next());
+                    }
+                }
+                partial.ranges = 1;
+                return partial;
+            });
+        }
+    }
+
+    /**
+     * Aggregate of one id range. Lines arrive ordered by order id, so an order is counted when its
+     * first line is seen; ranges never share an order.
+     */
+    private static final class Partial {
+        private long orders;
+        private long lines;
+        private long units;
+        private double revenue;
+        private long ranges;
+        private long lastOrderId = -1;
+        private final Map<Order.OrderStatus, Long> ordersByStatus = new EnumMap<>(Order.OrderStatus.class);
+        private final Map<String, Double> revenueByCategory = new TreeMap<>();
+
+        // [orderId, status, category, quantity, subtotal]
+        void add(Object[] row) {
+            long orderId = (Long) row[0];
+            if (orderId != lastOrderId) {
+                orders++;
+                ordersByStatus.merge((Order.OrderStatus) row[1], 1L, Long::sum);
+                lastOrderId = orderId;
+            }
+            double subtotal = row[4] == null ? 0 : ((Number) row[4]).doubleValue();
+            lines++;
+            units += row[3] == null ? 0 : ((Number) row[3]).longValue();
+            revenue += subtotal;
+            revenueByCategory.merge(row[2] == null ? UNCATEGORIZED : (String) row[2], subtotal, Double::sum);
+        }
+
+        Partial merge(Partial other) {
+            orders += other.orders;
+            lines += other.lines;
+            units += other.units;
+            revenue += other.revenue;
+            ranges += other.ranges;
+            other.ordersByStatus.forEach((status, count) -> ordersByStatus.merge(status, count, Long::sum));
+            other.revenueByCategory.forEach((name, amount) -> revenueByCategory.merge(name, amount, Double::sum));
+            return this;
+        }
+
+        Map<String, Object> toReport() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("orders", orders);
+            report.put("lines", lines);
+            report.put("units", units);
+            report.put("revenue", revenue);
+            report.put("averageOrderValue", orders > 0 ? revenue / orders : 0);
+            report.put("ordersByStatus", ordersByStatus);
+            report.put("revenueByCategory", revenueByCategory);
+            report.put("scannedRanges", ranges);
+            return report;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.pharmacy.api.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on its own small pool, away from the servlet threads.
+ *
+ * A hash costs around 100 ms of CPU, so a burst of logins on request threads would leave none for
+ * the rest of the API. Here at most {@code security.hashing.threads} hashes run at once and at most
+ * {@code security.hashing.queue-capacity} wait; beyond that a request is turned away at once with a
+ * 503 instead of queueing without bound. Time spent queued and hashing goes into
+ * {@link QuantileTracker}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final QuantileTracker quantileTracker;
+
+    @Value("${security.hashing.threads:0}")
+    private int threads;
+
+    @Value("${security.hashing.queue-capacity:100}")
+    private int queueCapacity;
+
+    private final LongAdder rejected = new LongAdder();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger created = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Queue depth, pool usage and rejections, plus percentiles of queue and hash time.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("activeHashes", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("rejected", rejected.sum());
+        stats.put("queueMsPercentiles", quantileTracker.percentiles(QuantileTracker.HASH_QUEUE_MS));
+        stats.put("hashMsPercentiles", quantileTracker.percentiles(QuantileTracker.HASH_MS));
+        return stats;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> hash) {
+        long queued = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long started = System.nanoTime();
+                try {
+                    return hash.get();
+                } finally {
+                    quantileTracker.recordHash(started - queued, System.nanoTime() - started);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many sign-ins in progress, please retry shortly");
+        }
+    }
+}
@@ -5,6 +5,7 @@
  */
 package org.pharmacy.api.service;
 
+import org.pharmacy.api.dto.PaymentHistoryItem;
 import org.pharmacy.api.dto.PaymentRequest;
 import org.pharmacy.api.dto.PaymentVerificationRequest;
 import org.pharmacy.api.model.Order;
@@ -29,12 +30,18 @@ public class PaymentService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final ReservationExpiryWheel reservationExpiryWheel;
+    private final MetricsLedger metricsLedger;
+    private final SalesRollupService salesRollupService;
+    private final QuantileTracker quantileTracker;
+    private final OrderFactStore orderFactStore;
+    private final CustomerSummaryService customerSummaryService;
 
     private static final String VALID_CARD_NUMBER = "4111111111111111";
 
     @Transactional
     public Payment initiatePayment(PaymentRequest request) {
-        Order order = orderRepository.findById(request.getOrderId())
+        Order order = orderRepository.findWithItemsById(request.getOrderId())
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
         User user = userRepository.findById(request.getUserId())
@@ -86,16 +93,36 @@ public class PaymentService {
             throw new RuntimeException("Payment is not in processing state");
         }
 
+        // The payment is returned with its order, lines included
+        Order order = orderRepository.findWithItemsById(payment.getOrder().getId())
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+            throw new RuntimeException("Order has been cancelled");
+        }
+
+        // Paying commits the stock held for the order, unless its reservation has already expired
+        if (order.getStatus() == Order.OrderStatus.PENDING && !reservationExpiryWheel.settle(order.getId(), true)) {
+            throw new RuntimeException("Order reservation has expired");
+        }
+
         // Simulate payment verification (always succeeds for valid card)
         payment.setStatus(Payment.PaymentStatus.COMPLETED);
         payment.setUpdatedAt(LocalDateTime.now());
         payment = paymentRepository.save(payment);
 
         // Update order status
-        Order order = payment.getOrder();
+        Order.OrderStatus oldStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.PROCESSING);
         order.setUpdatedAt(LocalDateTime.now());
         orderRepository.save(order);
+        customerSummaryService.orderStatusChanged(order.getUser().getId(), order.getTotalAmount(),
+                oldStatus, Order.OrderStatus.PROCESSING);
+        metricsLedger.orderStatusChangedAfterCommit(order.getTotalAmount(), oldStatus, Order.OrderStatus.PROCESSING);
+        if (oldStatus != Order.OrderStatus.PROCESSING) {
+            salesRollupService.recordAfterCommit(order, Order.OrderStatus.PROCESSING);
+            orderFactStore.statusChangedAfterCommit(order.getId(), Order.OrderStatus.PROCESSING);
+        }
+        quantileTracker.recordPaymentAfterCommit(payment.getAmount());
 
         notificationService.createNotification(
                 payment.getUser(),
@@ -109,10 +136,11 @@ public class PaymentService {
     }
 
     @Transactional(readOnly = true)
-    public List<Payment> getPaymentHistory(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return paymentRepository.findByUserId(userId);
+    public List<PaymentHistoryItem> getPaymentHistory(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return paymentRepository.findHistoryByUserId(userId);
     }
 
     @Transactional(readOnly = true)
@@ -6,6 +6,7 @@
  */
 package org.pharmacy.api.service;
 
+import org.pharmacy.api.dto.PrescriptionQueueRow;
 import org.pharmacy.api.model.Prescription;
 import org.pharmacy.api.model.User;
 import org.pharmacy.api.repository.PrescriptionRepository;
@@ -25,6 +26,8 @@ public class PrescriptionService {
     private final PrescriptionRepository prescriptionRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final MetricsLedger metricsLedger;
+    private final CustomerSummaryService customerSummaryService;
 
     @Transactional
     public Prescription uploadPrescription(Long userId, String fileName, String fileType, String doctorName, String notes) {
@@ -41,6 +44,8 @@ public class PrescriptionService {
         prescription.setStatus(Prescription.PrescriptionStatus.PENDING);
 
         prescription = prescriptionRepository.save(prescription);
+        customerSummaryService.prescriptionStatusChanged(user.getId(), null, Prescription.PrescriptionStatus.PENDING);
+        metricsLedger.prescriptionStatusChangedAfterCommit(null, Prescription.PrescriptionStatus.PENDING);
 
         notificationService.createNotification(
                 user,
@@ -69,11 +74,15 @@ public class PrescriptionService {
         User pharmacist = userRepository.findByEmail(pharmacistEmail)
                 .orElseThrow(() -> new RuntimeException("Pharmacist not found"));
 
+        Prescription.PrescriptionStatus oldStatus = prescription.getStatus();
         prescription.setStatus(Prescription.PrescriptionStatus.APPROVED);
         prescription.setReviewedBy(pharmacist);
         prescription.setReviewedAt(LocalDateTime.now());
 
         prescription = prescriptionRepository.save(prescription);
+        customerSummaryService.prescriptionStatusChanged(prescription.getUser().getId(), oldStatus,
+                Prescription.PrescriptionStatus.APPROVED);
+        metricsLedger.prescriptionStatusChangedAfterCommit(oldStatus, Prescription.PrescriptionStatus.APPROVED);
 
         notificationService.createNotification(
                 prescription.getUser(),
@@ -91,12 +100,16 @@ public class PrescriptionService {
         User pharmacist = userRepository.findByEmail(pharmacistEmail)
                 .orElseThrow(() -> new RuntimeException("Pharmacist not found"));
 
+        Prescription.PrescriptionStatus oldStatus = prescription.getStatus();
         prescription.setStatus(Prescription.PrescriptionStatus.REJECTED);
         prescription.setReviewedBy(pharmacist);
         prescription.setReviewedAt(LocalDateTime.now());
         prescription.setRejectionReason(reason);
 
         prescription = prescriptionRepository.save(prescription);
+        customerSummaryService.prescriptionStatusChanged(prescription.getUser().getId(), oldStatus,
+                Prescription.PrescriptionStatus.REJECTED);
+        metricsLedger.prescriptionStatusChangedAfterCommit(oldStatus, Prescription.PrescriptionStatus.REJECTED);
 
         notificationService.createNotification(
                 prescription.getUser(),
@@ -108,7 +121,7 @@ public class PrescriptionService {
         return prescription;
     }
 
-    public List<Prescription> getPendingPrescriptions() {
-        return prescriptionRepository.findByStatus(Prescription.PrescriptionStatus.PENDING);
+    public List<PrescriptionQueueRow> getPendingPrescriptions() {
+        return prescriptionRepository.findQueue(Prescription.PrescriptionStatus.PENDING);
     }
 }
@@ -0,0 +1,309 @@
+package org.pharmacy.api.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.Product;
+import org.pharmacy.api.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet filters and counts over the catalog, answered from memory.
+ *
+ * Every product gets a dense ordinal, and every facet value keeps a compressed bitmap of the
+ * ordinals carrying it. A filter is an OR of the selected values within a facet and an AND across
+ * facets; the count of a value is the cardinality of its bitmap ANDed with the other facets'
+ * filters, so picking one category still shows how many products the sibling categories hold.
+ *
+ * Bitmaps follow product writes after commit and stock crossing zero in
+ * {@link InventoryReservationEngine}; the whole index is rebuilt from the database at startup.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String BRAND = "brand";
+    public static final String PRESCRIPTION_REQUIRED = "prescriptionRequired";
+    public static final String IN_STOCK = "inStock";
+    public static final String PRICE = "price";
+
+    private static final String[] FACETS = {CATEGORY, BRAND, PRESCRIPTION_REQUIRED, IN_STOCK, PRICE};
+    private static final int IN_STOCK_INDEX = 3;
+
+    private static final double[] PRICE_EDGES = {5, 10, 25, 50, 100, 250};
+    private static final int REBUILD_PAGE_SIZE = 2000;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Map<String, CompressedBitmap>> values = createFacetMaps();
+    private final CompressedBitmap live = new CompressedBitmap();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] productIds = new long[1024];
+    private String[][] assigned = new String[1024][];
+    private int nextOrdinal;
+
+    /**
+     * Filter the catalog and count every facet value under the other facets' filters.
+     *
+     * @param selections facet name to the accepted values; absent or empty means unfiltered
+     * @return matching product ids in catalog order, starting at {@code offset}
+     */
+    public Result query(Map<String, ? extends Collection<String>> selections, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap[] filters = new CompressedBitmap[FACETS.length];
+            for (int f = 0; f < FACETS.length; f++) {
+                Collection<String> selected = selections.get(FACETS[f]);
+                if (selected == null || selected.isEmpty()) {
+                    continue;
+                }
+                CompressedBitmap union = new CompressedBitmap();
+                for (String value : selected) {
+                    CompressedBitmap bitmap = values.get(f).get(value);
+                    if (bitmap != null) {
+                        union = union.or(bitmap);
+                    }
+                }
+                filters[f] = union;
+            }
+
+            CompressedBitmap matching = intersect(filters, -1);
+
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            for (int f = 0; f < FACETS.length; f++) {
+                // A facet's own selection does not narrow its counts, only the other facets do
+                CompressedBitmap base = filters[f] == null ? matching : intersect(filters, f);
+                List<Map.Entry<String, Long>> counts = new ArrayList<>();
+                for (Map.Entry<String, CompressedBitmap> value : values.get(f).entrySet()) {
+                    long count = base.andCardinality(value.getValue());
+                    if (count > 0) {
+                        counts.add(Map.entry(value.getKey(), count));
+                    }
+                }
+                counts.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()));
+
+                Map<String, Long> ordered = new LinkedHashMap<>();
+                counts.forEach(count -> ordered.put(count.getKey(), count.getValue()));
+                facets.put(FACETS[f], ordered);
+            }
+
+            List<Long> page = new ArrayList<>();
+            int[] skipped = {0};
+            matching.forEach(ordinal -> {
+                if (limit <= 0) {
+                    return false;
+                }
+                if (skipped[0] < offset) {
+                    skipped[0]++;
+                    return true;
+                }
+                page.add(productIds[ordinal]);
+                return page.size() < limit;
+            });
+
+            return new Result(matching.cardinality(), page, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or update a product once the surrounding transaction commits.
+     */
+    public void indexAfterCommit(Product product) {
+        Long productId = product.getId();
+        String[] facetValues = facetValues(product);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                lock.writeLock().lock();
+                try {
+                    Integer ordinal = ordinals.get(productId);
+                    if (ordinal != null) {
+                        // Stock moves through the reservation engine, which reports it separately
+                        facetValues[IN_STOCK_INDEX] = assigned[ordinal][IN_STOCK_INDEX];
+                    }
+                    put(productId, facetValues);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop a product once the surrounding transaction commits.
+     */
+    public void removeAfterCommit(Long productId) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                lock.writeLock().lock();
+                try {
+                    Integer ordinal = ordinals.remove(productId);
+                    if (ordinal != null) {
+                        unassign(ordinal);
+                        live.remove(ordinal);
+                        assigned[ordinal] = null;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Move a product between in stock and out of stock.
+     */
+    public void stockChanged(Long productId, boolean inStock) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal == null) {
+                return;
+            }
+            String value = String.valueOf(inStock);
+            String previous = assigned[ordinal][IN_STOCK_INDEX];
+            if (!value.equals(previous)) {
+                values.get(IN_STOCK_INDEX).get(previous).remove(ordinal);
+                if (values.get(IN_STOCK_INDEX).get(previous).cardinality() == 0) {
+                    values.get(IN_STOCK_INDEX).remove(previous);
+                }
+                values.get(IN_STOCK_INDEX).computeIfAbsent(value, v -> new CompressedBitmap()).add(ordinal);
+                assigned[ordinal][IN_STOCK_INDEX] = value;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int pageNumber = 0;
+        Page<Product> page;
+        do {
+            page = productRepository.findAll(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("id")));
+            lock.writeLock().lock();
+            try {
+                for (Product product : page.getContent()) {
+                    put(product.getId(), facetValues(product));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while (page.hasNext());
+
+        System.out.println("🧮 Product facet index built: " + ordinals.size() + " products");
+    }
+
+    private CompressedBitmap intersect(CompressedBitmap[] filters, int skipped) {
+        CompressedBitmap result = live;
+        for (int f = 0; f < filters.length; f++) {
+            if (f != skipped && filters[f] != null) {
+                result = result.and(filters[f]);
+            }
+        }
+        return result;
+    }
+
+    private void put(Long productId, String[] facetValues) {
+        Integer ordinal = ordinals.get(productId);
+        if (ordinal == null) {
+            ordinal = nextOrdinal++;
+            if (ordinal == productIds.length) {
+                productIds = Arrays.copyOf(productIds, ordinal * 2);
+                assigned = Arrays.copyOf(assigned, ordinal * 2);
+            }
+            ordinals.put(productId, ordinal);
+            productIds[ordinal] = productId;
+            live.add(ordinal);
+        } else {
+            unassign(ordinal);
+        }
+
+        for (int f = 0; f < FACETS.length; f++) {
+            if (facetValues[f] != null) {
+                values.get(f).computeIfAbsent(facetValues[f], v -> new CompressedBitmap()).add(ordinal);
+            }
+        }
+        assigned[ordinal] = facetValues;
+    }
+
+    private void unassign(int ordinal) {
+        String[] previous = assigned[ordinal];
+        for (int f = 0; f < FACETS.length; f++) {
+            CompressedBitmap bitmap = previous[f] == null ? null : values.get(f).get(previous[f]);
+            if (bitmap != null) {
+                bitmap.remove(ordinal);
+                if (bitmap.cardinality() == 0) {
+                    values.get(f).remove(previous[f]);
+                }
+            }
+        }
+    }
+
+    private static String[] facetValues(Product product) {
+        return new String[] {
+                blankToNull(product.getCategory()),
+                blankToNull(product.getBrand()),
+                String.valueOf(Boolean.TRUE.equals(product.getPrescriptionRequired())),
+                String.valueOf(product.getStockQuantity() != null && product.getStockQuantity() > 0),
+                priceRange(product.getPrice())
+        };
+    }
+
+    static String priceRange(Double price) {
+        if (price == null) {
+            return null;
+        }
+        double lower = 0;
+        for (double edge : PRICE_EDGES) {
+            if (price < edge) {
+                return format(lower) + "-" + format(edge);
+            }
+            lower = edge;
+        }
+        return format(lower) + "+";
+    }
+
+    private static String format(double bound) {
+        return String.valueOf((long) bound);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static List<Map<String, CompressedBitmap>> createFacetMaps() {
+        List<Map<String, CompressedBitmap>> created = new ArrayList<>(FACETS.length);
+        for (int f = 0; f < FACETS.length; f++) {
+            created.add(new HashMap<>());
+        }
+        return created;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final long total;
+        private final List<Long> productIds;
+        private final Map<String, Map<String, Long>> facets;
+    }
+}
@@ -0,0 +1,303 @@
+package org.pharmacy.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.Product;
+import org.pharmacy.api.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process inverted index over product name, brand, category and description.
+ *
+ * Every query token must match a document, either exactly or as the prefix of an indexed term, and
+ * matches are ranked with BM25 over field-weighted term frequencies. Terms are kept in a sorted map
+ * so a prefix is a range scan instead of a table scan. At startup the index is built from the
+ * database into a fresh structure that replaces the live one only once complete; after that
+ * {@link ProductService} keeps it current as each product write commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_MATCH_WEIGHT = 0.7;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int REBUILD_PAGE_SIZE = 2000;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // Writes that commit while a rebuild runs, replayed onto the new index before it goes live
+    private List<Consumer<Index>> duringRebuild;
+
+    /**
+     * Rank products for a free-text query.
+     *
+     * @return ids of the best matching products, best first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (index.documents.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = index.totalLength / index.documents.size();
+
+            Map<Long, Double> scores = null;
+            for (String token : tokens) {
+                Map<Long, Double> tokenScores = index.scoreToken(token, averageLength);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Every token has to match: keep only documents seen for all of them
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((productId, score) -> score + tokenScores.get(productId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return topK(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a product once the surrounding transaction commits.
+     */
+    public void indexAfterCommit(Product product) {
+        Long productId = product.getId();
+        Document document = analyze(product);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                write(target -> target.put(productId, document));
+            }
+        });
+    }
+
+    /**
+     * Drop a product once the surrounding transaction commits.
+     */
+    public void removeAfterCommit(Long productId) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                write(target -> target.remove(productId));
+            }
+        });
+    }
+
+    /**
+     * Rebuild the index page by page, analyzing each page in parallel. Searches keep using the
+     * current index until the new one is complete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            duringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index fresh = new Index();
+        boolean complete = false;
+        try {
+            int pageNumber = 0;
+            Page<Product> page;
+            do {
+                page = productRepository.findAll(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("id")));
+                List<Product> products = page.getContent();
+                List<Document> analyzed = products.parallelStream().map(ProductSearchIndex::analyze).toList();
+                for (int i = 0; i < products.size(); i++) {
+                    fresh.put(products.get(i).getId(), analyzed.get(i));
+                }
+            } while (page.hasNext());
+            complete = true;
+        } finally {
+            // A failed rebuild leaves the current index live
+            lock.writeLock().lock();
+            try {
+                if (complete) {
+                    duringRebuild.forEach(change -> change.accept(fresh));
+                    index = fresh;
+                }
+                duringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        System.out.println("🔎 Product search index built: " + fresh.documents.size() + " products, "
+                + fresh.postings.size() + " terms");
+    }
+
+    private void write(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (duringRebuild != null) {
+                duringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static List<Long> topK(Map<Long, Double> scores, int limit) {
+        Comparator<Map.Entry<Long, Double>> byScore = Map.Entry.comparingByValue();
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(Math.min(limit, scores.size()) + 1, byScore);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Long> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(best.poll().getKey());
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    private static Document analyze(Product product) {
+        Map<String, Float> terms = new HashMap<>();
+        float length = 0;
+        length += addField(terms, product.getName(), NAME_WEIGHT);
+        length += addField(terms, product.getBrand(), BRAND_WEIGHT);
+        length += addField(terms, product.getCategory(), CATEGORY_WEIGHT);
+        length += addField(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+        return new Document(terms, length);
+    }
+
+    private static float addField(Map<String, Float> terms, String text, float weight) {
+        float length = 0;
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+            length += weight;
+        }
+        return length;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Postings and document lengths; not thread-safe on its own.
+     */
+    private static final class Index {
+        final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+        final Map<Long, Document> documents = new HashMap<>();
+        double totalLength;
+
+        Map<Long, Double> scoreToken(String token, double averageLength) {
+            Map<Long, Double> tokenScores = new HashMap<>();
+
+            Map<Long, Float> exact = postings.get(token);
+            if (exact != null) {
+                accumulate(tokenScores, exact, 1.0, averageLength);
+            }
+
+            int expansions = 0;
+            for (Map.Entry<String, Map<Long, Float>> entry
+                    : postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                accumulate(tokenScores, entry.getValue(), PREFIX_MATCH_WEIGHT, averageLength);
+            }
+            return tokenScores;
+        }
+
+        private void accumulate(Map<Long, Double> tokenScores, Map<Long, Float> termPostings,
+                                double matchWeight, double averageLength) {
+            int documentFrequency = termPostings.size();
+            double idf = Math.log(1 + (documents.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+            for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+                double tf = posting.getValue();
+                double length = documents.get(posting.getKey()).length;
+                double score = matchWeight * idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                // A document only counts its best expansion of a token
+                tokenScores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+
+        void put(Long productId, Document document) {
+            remove(productId);
+            documents.put(productId, document);
+            totalLength += document.length;
+            document.terms.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(productId, tf));
+        }
+
+        void remove(Long productId) {
+            Document previous = documents.remove(productId);
+            if (previous == null) {
+                return;
+            }
+            totalLength -= previous.length;
+            for (String term : previous.terms.keySet()) {
+                Map<Long, Float> termPostings = postings.get(term);
+                if (termPostings != null) {
+                    termPostings.remove(productId);
+                    if (termPostings.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Document {
+        final Map<String, Float> terms;
+        final float length;
+
+        Document(Map<String, Float> terms, float length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+}
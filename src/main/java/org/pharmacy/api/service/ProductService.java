@@ -6,25 +6,44 @@
  */
 package org.pharmacy.api.service;
 
+import org.pharmacy.api.dto.CursorPage;
+import org.pharmacy.api.dto.PageCursor;
+import org.pharmacy.api.dto.ProductCard;
+import org.pharmacy.api.dto.ProductFacetResponse;
 import org.pharmacy.api.dto.ProductRequest;
+import org.pharmacy.api.dto.ProductSuggestion;
 import org.pharmacy.api.dto.StockUpdateRequest;
 import org.pharmacy.api.model.Product;
 import org.pharmacy.api.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
-
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    private final InventoryReservationEngine inventoryReservationEngine;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggester productSuggester;
+    private final ProductFacetIndex productFacetIndex;
+    private final MetricsLedger metricsLedger;
+
+    public CursorPage<ProductCard> getProducts(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<ProductCard> rows = after == null
+                ? productRepository.findFirstPage(Limit.of(limit + 1))
+                : productRepository.findPageAfter(after.getCreatedAt(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, ProductCard::getCreatedAt, ProductCard::getId);
     }
 
     public Product getProductById(Long id) {
@@ -48,7 +67,12 @@ public class ProductService {
         product.setReorderLevel(request.getReorderLevel() != null ?
                 request.getReorderLevel() : 10);
 
-        return productRepository.save(product);
+        product = productRepository.save(product);
+        productSearchIndex.indexAfterCommit(product);
+        productSuggester.indexAfterCommit(product);
+        productFacetIndex.indexAfterCommit(product);
+        metricsLedger.productAddedAfterCommit(product.getId(), product.getPrice(), product.getStockQuantity());
+        return product;
     }
 
     @Transactional
@@ -62,11 +86,21 @@ public class ProductService {
         product.setBrand(request.getBrand());
         product.setImageUrl(request.getImageUrl());
         product.setPrescriptionRequired(request.getPrescriptionRequired());
-        product.setStockQuantity(request.getStockQuantity());
         product.setReorderLevel(request.getReorderLevel());
         product.setUpdatedAt(LocalDateTime.now());
 
-        return productRepository.save(product);
+        if (request.getStockQuantity() != null) {
+            inventoryReservationEngine.adjustAfterCommit(id, request.getStockQuantity());
+            product.setStockQuantity(request.getStockQuantity());
+        }
+
+        product = productRepository.save(product);
+        productSearchIndex.indexAfterCommit(product);
+        productSuggester.indexAfterCommit(product);
+        productFacetIndex.indexAfterCommit(product);
+        // Stock reaches the ledger through the inventory flush
+        metricsLedger.priceChangedAfterCommit(id, product.getPrice());
+        return product;
     }
 
     @Transactional
@@ -75,18 +109,46 @@ public class ProductService {
             throw new RuntimeException("Product not found");
         }
         productRepository.deleteById(id);
+        inventoryReservationEngine.forget(id);
+        productSearchIndex.removeAfterCommit(id);
+        productSuggester.removeAfterCommit(id);
+        productFacetIndex.removeAfterCommit(id);
+        metricsLedger.productRemovedAfterCommit(id);
+    }
+
+    public List<ProductCard> searchProducts(String query, int limit) {
+        return findCardsInOrder(productSearchIndex.search(query, limit));
     }
 
-    public List<Product> searchProducts(String query) {
-        return productRepository.findByNameContainingIgnoreCase(query);
+    public List<ProductSuggestion> suggestProducts(String query, int limit) {
+        return productSuggester.suggest(query, limit);
+    }
+
+    public ProductFacetResponse browseProducts(Map<String, List<String>> selections, int page, int size) {
+        ProductFacetIndex.Result result = productFacetIndex.query(selections, page * size, size);
+        List<ProductCard> products = findCardsInOrder(result.getProductIds());
+        return new ProductFacetResponse(result.getTotal(), page, size, products, result.getFacets());
+    }
+
+    private List<ProductCard> findCardsInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductCard> cards = productRepository.findCardsByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductCard::getId, Function.identity()));
+
+        return productIds.stream()
+                .map(cards::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     public List<Product> getProductsByCategory(String category) {
         return productRepository.findByCategory(category);
     }
 
-    public List<Product> getProductsByPrescriptionRequired(Boolean required) {
-        return productRepository.findByPrescriptionRequired(required);
+    public List<ProductCard> getProductsByPrescriptionRequired(Boolean required, int limit) {
+        return productRepository.findCardsByPrescriptionRequired(required, Limit.of(limit));
     }
 
     public List<Product> getLowStockProducts() {
@@ -98,19 +160,24 @@ public class ProductService {
     @Transactional
     public Product updateStock(StockUpdateRequest request) {
         Product product = getProductById(request.getProductId());
+        Map<Long, Integer> change = Map.of(product.getId(), request.getQuantity());
 
+        // The engine only changes once this transaction commits, so report what it will hold then
+        long available = inventoryReservationEngine.getAvailable(product.getId());
         if ("ADD".equalsIgnoreCase(request.getOperation())) {
-            product.setStockQuantity(product.getStockQuantity() + request.getQuantity());
+            inventoryReservationEngine.restockAfterCommit(change);
+            available += request.getQuantity();
         } else if ("SUBTRACT".equalsIgnoreCase(request.getOperation())) {
-            int newQuantity = product.getStockQuantity() - request.getQuantity();
-            if (newQuantity < 0) {
+            if (!inventoryReservationEngine.reserve(change).isEmpty()) {
                 throw new RuntimeException("Insufficient stock");
             }
-            product.setStockQuantity(newQuantity);
+            inventoryReservationEngine.commitAfterCommit(change);
+            available -= request.getQuantity();
         } else {
             throw new RuntimeException("Invalid operation. Use ADD or SUBTRACT");
         }
 
+        product.setStockQuantity((int) available);
         product.setUpdatedAt(LocalDateTime.now());
         return productRepository.save(product);
     }
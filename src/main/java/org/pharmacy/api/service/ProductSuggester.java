@@ -0,0 +1,461 @@
+package org.pharmacy.api.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.dto.ProductSuggestion;
+import org.pharmacy.api.model.Product;
+import org.pharmacy.api.repository.OrderItemRepository;
+import org.pharmacy.api.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Typo-tolerant autocomplete over product names and brands.
+ *
+ * Suggestions are served from an immutable array-packed trie: one char label and a handful of ints
+ * per node, children laid out contiguously in breadth-first order, and each node knowing the range
+ * of sorted keys below it. Nodes with more keys below them than a page of suggestions also point at
+ * a precomputed block of their most popular keys, shared with any single-child chain above them.
+ *
+ * A query walks the trie with a Levenshtein row per node (adjacent transpositions count as one edit)
+ * and stops descending once every cell exceeds the edit budget; the first letter has to match. Any
+ * node whose row ends within the budget contributes the keys below it. Suggestions are ordered by
+ * edit distance, then popularity, which is units ordered, seeded from order history.
+ *
+ * Writes go to a small mutable registry; the trie is rebuilt from it on a thread of its own and
+ * swapped in atomically, so reads never lock and never touch the database. Added, renamed or removed
+ * products are picked up within {@code search.suggest.rebuild-interval-ms}; sales only reorder
+ * suggestions, so they trigger a rebuild at most every {@code search.suggest.popularity-interval-ms}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSuggester {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final int MAX_QUERY_LENGTH = 64;
+    private static final int LOAD_PAGE_SIZE = 2000;
+
+    private static final Comparator<Candidate> BY_POPULARITY = Comparator
+            .comparingLong((Candidate candidate) -> candidate.popularity).reversed()
+            .thenComparing(candidate -> candidate.text);
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    @Value("${search.suggest.popularity-interval-ms:300000}")
+    private long popularityIntervalMillis;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean namesChanged = new AtomicBoolean();
+    private final AtomicBoolean popularityChanged = new AtomicBoolean();
+    private final AtomicBoolean building = new AtomicBoolean();
+    private volatile long builtAtMillis;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private ExecutorService builder;
+
+    @PostConstruct
+    void start() {
+        builder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-suggester");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * Complete a partially typed product or brand name, tolerating small typos.
+     */
+    public List<ProductSuggestion> suggest(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (normalized.length() > MAX_QUERY_LENGTH) {
+            normalized = normalized.substring(0, MAX_QUERY_LENGTH);
+        }
+
+        Snapshot current = snapshot;
+        if (current.candidates.length == 0) {
+            return List.of();
+        }
+
+        char[] target = normalized.toCharArray();
+        int[] row = new int[target.length + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+
+        // Widen the edit budget only while closer matches cannot fill the page; most keystrokes
+        // are typed correctly and never pay for the fuzzy walk
+        int wanted = Math.min(limit, MAX_SUGGESTIONS);
+        Map<Integer, Integer> distances = new HashMap<>();
+        for (int budget = 0; budget <= maxEdits(target.length) && distances.size() < wanted; budget++) {
+            walk(current, 0, target, budget, row, null, distances);
+        }
+
+        // Closer matches first, then by popularity, which is the candidate number
+        List<Map.Entry<Integer, Integer>> matches = new ArrayList<>(distances.entrySet());
+        matches.sort(Map.Entry.<Integer, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        List<ProductSuggestion> suggestions = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> match : matches.subList(0, Math.min(wanted, matches.size()))) {
+            Candidate candidate = current.candidates[match.getKey()];
+            suggestions.add(new ProductSuggestion(candidate.text, candidate.type, candidate.productId));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Add or rename a product once the surrounding transaction commits.
+     */
+    public void indexAfterCommit(Product product) {
+        Long productId = product.getId();
+        String name = product.getName();
+        String brand = product.getBrand();
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                entries.compute(productId, (id, previous) ->
+                        new Entry(name, brand, previous != null ? previous.sold : new LongAdder()));
+                namesChanged.set(true);
+            }
+        });
+    }
+
+    /**
+     * Drop a product once the surrounding transaction commits.
+     */
+    public void removeAfterCommit(Long productId) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed && entries.remove(productId) != null) {
+                namesChanged.set(true);
+            }
+        });
+    }
+
+    /**
+     * Count ordered units towards product popularity once the order commits.
+     */
+    public void recordSalesAfterCommit(Map<Long, Integer> quantities) {
+        Map<Long, Integer> sold = Map.copyOf(quantities);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                sold.forEach((productId, quantity) -> {
+                    Entry entry = entries.get(productId);
+                    if (entry != null) {
+                        entry.sold.add(quantity);
+                    }
+                });
+                popularityChanged.set(true);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        int pageNumber = 0;
+        Page<Product> page;
+        do {
+            page = productRepository.findAll(PageRequest.of(pageNumber++, LOAD_PAGE_SIZE, Sort.by("id")));
+            for (Product product : page.getContent()) {
+                entries.put(product.getId(), new Entry(product.getName(), product.getBrand(), new LongAdder()));
+            }
+        } while (page.hasNext());
+
+        for (Object[] row : orderItemRepository.sumQuantityByProduct()) {
+            Entry entry = entries.get((Long) row[0]);
+            if (entry != null && row[1] != null) {
+                entry.sold.add(((Number) row[1]).longValue());
+            }
+        }
+
+        namesChanged.set(false);
+        popularityChanged.set(false);
+        builtAtMillis = System.currentTimeMillis();
+        snapshot = build();
+        System.out.println("💡 Product suggester built: " + snapshot.candidates.length + " suggestions, "
+                + snapshot.labels.length + " trie nodes");
+    }
+
+    /**
+     * Hand a rebuild to the builder thread when one is due; the scheduler thread never builds.
+     */
+    @Scheduled(fixedDelayString = "${search.suggest.rebuild-interval-ms:10000}")
+    public void rebuildIfDirty() {
+        boolean popularityDue = popularityChanged.get()
+                && System.currentTimeMillis() - builtAtMillis >= popularityIntervalMillis;
+        if (!namesChanged.get() && !popularityDue) {
+            return;
+        }
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        builder.execute(() -> {
+            try {
+                namesChanged.set(false);
+                popularityChanged.set(false);
+                builtAtMillis = System.currentTimeMillis();
+                snapshot = build();
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+
+    private void walk(Snapshot s, int node, char[] target, int budget, int[] row, int[] parentRow,
+                      Map<Integer, Integer> distances) {
+        int distance = row[target.length];
+        if (distance <= budget) {
+            collect(s, node, distance, distances);
+            if (distance == 0) {
+                // Nothing deeper can match the keys below this node any better
+                return;
+            }
+        }
+
+        char previousLabel = s.labels[node];
+        for (int child = s.firstChild[node]; child < s.firstChild[node + 1]; child++) {
+            char label = s.labels[child];
+            if (node == 0 && label != target[0]) {
+                // Typos in the first letter are rare and would make every branch of the root a candidate
+                continue;
+            }
+            int[] next = new int[row.length];
+            next[0] = row[0] + 1;
+            int best = next[0];
+            for (int j = 1; j < row.length; j++) {
+                int cost = target[j - 1] == label ? 0 : 1;
+                int cell = Math.min(Math.min(next[j - 1] + 1, row[j] + 1), row[j - 1] + cost);
+                if (parentRow != null && j > 1 && label == target[j - 2] && previousLabel == target[j - 1]) {
+                    cell = Math.min(cell, parentRow[j - 2] + 1);
+                }
+                next[j] = cell;
+                best = Math.min(best, cell);
+            }
+            if (best <= budget) {
+                walk(s, child, target, budget, next, row, distances);
+            }
+        }
+    }
+
+    private static void collect(Snapshot s, int node, int distance, Map<Integer, Integer> distances) {
+        int offset = s.topOffset[node];
+        if (offset < 0) {
+            for (int position = s.rangeStart[node]; position < s.rangeEnd[node]; position++) {
+                distances.merge(s.rankAt[position], distance, Math::min);
+            }
+        } else {
+            for (int i = offset; i < offset + MAX_SUGGESTIONS; i++) {
+                distances.merge(s.tops[i], distance, Math::min);
+            }
+        }
+    }
+
+    private static int maxEdits(int length) {
+        if (length < 3) {
+            return 0;
+        }
+        return length < 6 ? 1 : 2;
+    }
+
+    private Snapshot build() {
+        Map<String, Candidate> byKey = new HashMap<>();
+        Map<String, Candidate> brands = new HashMap<>();
+        entries.forEach((productId, entry) -> {
+            long popularity = entry.sold.sum() + 1;
+            String nameKey = normalize(entry.name);
+            if (!nameKey.isEmpty()) {
+                byKey.merge(nameKey, new Candidate(entry.name.trim(), "PRODUCT", productId, popularity),
+                        ProductSuggester::morePopular);
+            }
+            String brandKey = normalize(entry.brand);
+            if (!brandKey.isEmpty()) {
+                brands.merge(brandKey, new Candidate(entry.brand.trim(), "BRAND", null, popularity),
+                        (a, b) -> new Candidate(a.text, a.type, null, a.popularity + b.popularity));
+            }
+        });
+        brands.forEach((key, brand) -> byKey.merge(key, brand, ProductSuggester::morePopular));
+
+        // Candidates are numbered by popularity, so "most popular" is simply "smallest number"
+        Candidate[] candidates = byKey.values().toArray(new Candidate[0]);
+        Arrays.sort(candidates, BY_POPULARITY);
+        Map<Candidate, Integer> rankOf = new IdentityHashMap<>();
+        for (int rank = 0; rank < candidates.length; rank++) {
+            rankOf.put(candidates[rank], rank);
+        }
+
+        String[] keys = byKey.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        int[] rankAt = new int[keys.length];
+        int capacity = 1;
+        for (int i = 0; i < keys.length; i++) {
+            rankAt[i] = rankOf.get(byKey.get(keys[i]));
+            capacity += keys[i].length();
+        }
+
+        char[] labels = new char[capacity];
+        int[] firstChild = new int[capacity + 1];
+        int[] rangeStart = new int[capacity];
+        int[] rangeEnd = new int[capacity];
+        int[] depth = new int[capacity];
+        rangeEnd[0] = keys.length;
+
+        // Breadth-first: each node's children are appended as one contiguous run
+        int count = 1;
+        for (int node = 0; node < count; node++) {
+            firstChild[node] = count;
+            int d = depth[node];
+            int i = rangeStart[node];
+            if (i < rangeEnd[node] && keys[i].length() == d) {
+                i++; // the key ending here sorts before its extensions
+            }
+            while (i < rangeEnd[node]) {
+                char label = keys[i].charAt(d);
+                int j = i + 1;
+                while (j < rangeEnd[node] && keys[j].charAt(d) == label) {
+                    j++;
+                }
+                labels[count] = label;
+                rangeStart[count] = i;
+                rangeEnd[count] = j;
+                depth[count] = d + 1;
+                count++;
+                i = j;
+            }
+        }
+        firstChild[count] = count;
+
+        int[] topOffset = new int[count];
+        int[] tops = new int[MAX_SUGGESTIONS * 16];
+        int topsLength = 0;
+        // Children always come after their parent, so walking backwards sees children first
+        for (int node = count - 1; node >= 0; node--) {
+            int size = rangeEnd[node] - rangeStart[node];
+            int first = firstChild[node];
+            int last = firstChild[node + 1];
+            if (size <= MAX_SUGGESTIONS) {
+                topOffset[node] = -1;
+            } else if (last - first == 1 && rangeEnd[first] - rangeStart[first] == size) {
+                topOffset[node] = topOffset[first];
+            } else {
+                // A child contributes at most a block's worth, plus possibly the key ending here
+                int[] pool = new int[MAX_SUGGESTIONS * (last - first) + 1];
+                int pooled = 0;
+                if (keys[rangeStart[node]].length() == depth[node]) {
+                    pool[pooled++] = rankAt[rangeStart[node]];
+                }
+                for (int child = first; child < last; child++) {
+                    if (topOffset[child] < 0) {
+                        for (int position = rangeStart[child]; position < rangeEnd[child]; position++) {
+                            pool[pooled++] = rankAt[position];
+                        }
+                    } else {
+                        System.arraycopy(tops, topOffset[child], pool, pooled, MAX_SUGGESTIONS);
+                        pooled += MAX_SUGGESTIONS;
+                    }
+                }
+                Arrays.sort(pool, 0, pooled);
+
+                if (topsLength + MAX_SUGGESTIONS > tops.length) {
+                    tops = Arrays.copyOf(tops, tops.length * 2);
+                }
+                System.arraycopy(pool, 0, tops, topsLength, MAX_SUGGESTIONS);
+                topOffset[node] = topsLength;
+                topsLength += MAX_SUGGESTIONS;
+            }
+        }
+
+        return new Snapshot(Arrays.copyOf(labels, count), Arrays.copyOf(firstChild, count + 1),
+                Arrays.copyOf(rangeStart, count), Arrays.copyOf(rangeEnd, count), topOffset,
+                Arrays.copyOf(tops, topsLength), rankAt, candidates);
+    }
+
+    private static Candidate morePopular(Candidate a, Candidate b) {
+        return BY_POPULARITY.compare(a, b) <= 0 ? a : b;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static final class Entry {
+        final String name;
+        final String brand;
+        final LongAdder sold;
+
+        Entry(String name, String brand, LongAdder sold) {
+            this.name = name;
+            this.brand = brand;
+            this.sold = sold;
+        }
+    }
+
+    private static final class Candidate {
+        final String text;
+        final String type;
+        final Long productId;
+        final long popularity;
+
+        Candidate(String text, String type, Long productId, long popularity) {
+            this.text = text;
+            this.type = type;
+            this.productId = productId;
+            this.popularity = popularity;
+        }
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new char[1], new int[] {1, 1}, new int[1], new int[1],
+                new int[] {-1}, new int[0], new int[0], new Candidate[0]);
+
+        final char[] labels;
+        final int[] firstChild;
+        final int[] rangeStart;
+        final int[] rangeEnd;
+        final int[] topOffset;
+        final int[] tops;
+        final int[] rankAt;
+        final Candidate[] candidates;
+
+        Snapshot(char[] labels, int[] firstChild, int[] rangeStart, int[] rangeEnd, int[] topOffset,
+                 int[] tops, int[] rankAt, Candidate[] candidates) {
+            this.labels = labels;
+            this.firstChild = firstChild;
+            this.rangeStart = rangeStart;
+            this.rangeEnd = rangeEnd;
+            this.topOffset = topOffset;
+            this.tops = tops;
+            this.rankAt = rankAt;
+            this.candidates = candidates;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.pharmacy.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Quantiles of a stream of non-negative values within 1% relative error, in constant memory.
+ *
+ * Values are counted in logarithmic buckets whose bounds grow by a factor of
+ * {@code (1 + a) / (1 - a)}, so any value reported for a quantile is within {@code a} of a value that
+ * was actually recorded at that rank (the DDSketch construction). The bucket range is fixed, which
+ * caps a sketch at about a thousand counters; values at or below {@value #MIN_VALUE} count as zero
+ * and values above {@value #MAX_VALUE} land in the top bucket. Two sketches merge by adding their
+ * counters, so sketches from several nodes combine into exactly the sketch of the union.
+ */
+final class QuantileSketch {
+
+    static final double RELATIVE_ACCURACY = 0.01;
+    static final double MIN_VALUE = 0.01;
+    static final double MAX_VALUE = 1e7;
+
+    private static final byte FORMAT_VERSION = 2;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // The bucket holding MIN_VALUE also holds the values just above it
+    private static final int MIN_INDEX = index(MIN_VALUE);
+    private static final int MAX_INDEX = index(MAX_VALUE);
+
+    private final long[] counts = new long[MAX_INDEX - MIN_INDEX + 1];
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    synchronized void add(double value) {
+        if (Double.isNaN(value) || value < 0) {
+            return;
+        }
+        if (value <= MIN_VALUE) {
+            zeroCount++;
+        } else {
+            counts[Math.min(index(value), MAX_INDEX) - MIN_INDEX]++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    void merge(QuantileSketch other) {
+        // Snapshot first so two sketches merging into each other never hold both locks
+        QuantileSketch snapshot = other.copy();
+        synchronized (this) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += snapshot.counts[i];
+            }
+            zeroCount += snapshot.zeroCount;
+            count += snapshot.count;
+            min = Math.min(min, snapshot.min);
+            max = Math.max(max, snapshot.max);
+        }
+    }
+
+    synchronized long count() {
+        return count;
+    }
+
+    /**
+     * @param q quantile between 0 and 1
+     * @return the estimated value at that quantile, or 0 when nothing has been recorded
+     */
+    synchronized double quantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return min;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // Midpoint of the bucket in relative terms, clamped to what was actually recorded
+                double estimate = 2 * Math.pow(GAMMA, i + MIN_INDEX) / (1 + GAMMA);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Sparse binary form: header, then one (bucket, count) pair per non-empty bucket.
+     */
+    synchronized byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeDouble(RELATIVE_ACCURACY);
+            out.writeLong(zeroCount);
+            out.writeDouble(min);
+            out.writeDouble(max);
+
+            int used = 0;
+            for (long bucket : counts) {
+                if (bucket > 0) {
+                    used++;
+                }
+            }
+            out.writeInt(used);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    out.writeShort(i);
+                    out.writeLong(counts[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static QuantileSketch fromBytes(byte[] encoded) {
+        QuantileSketch sketch = new QuantileSketch();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            if (in.readByte() != FORMAT_VERSION || in.readDouble() != RELATIVE_ACCURACY) {
+                throw new RuntimeException("Incompatible quantile sketch");
+            }
+            sketch.zeroCount = in.readLong();
+            sketch.min = in.readDouble();
+            sketch.max = in.readDouble();
+            sketch.count = sketch.zeroCount;
+
+            int used = in.readInt();
+            for (int n = 0; n < used; n++) {
+                int bucket = in.readUnsignedShort();
+                long bucketCount = in.readLong();
+                if (bucket >= sketch.counts.length || bucketCount < 0) {
+                    throw new RuntimeException("Corrupt quantile sketch");
+                }
+                sketch.counts[bucket] += bucketCount;
+                sketch.count += bucketCount;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Corrupt quantile sketch");
+        }
+        return sketch;
+    }
+
+    private synchronized QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch();
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        copy.zeroCount = zeroCount;
+        copy.count = count;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+}
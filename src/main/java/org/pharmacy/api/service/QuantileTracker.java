@@ -0,0 +1,165 @@
+package org.pharmacy.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.Payment;
+import org.pharmacy.api.repository.OrderRepository;
+import org.pharmacy.api.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Running distributions of order totals, basket sizes, payment amounts, request latency and password
+ * hashing (time queued and time hashing).
+ *
+ * Each distribution is a {@link QuantileSketch}, so memory stays fixed however many orders come in
+ * and p50/p90/p99 are read without a query. Sketches are exported in a compact binary form that
+ * another node (or an offline job) can decode and merge into a cluster-wide distribution.
+ */
+@Component
+@RequiredArgsConstructor
+public class QuantileTracker {
+
+    public static final String ORDER_TOTAL = "orderTotal";
+    public static final String BASKET_SIZE = "basketSize";
+    public static final String PAYMENT_AMOUNT = "paymentAmount";
+    public static final String REQUEST_LATENCY_MS = "requestLatencyMs";
+    public static final String HASH_QUEUE_MS = "hashQueueMs";
+    public static final String HASH_MS = "hashMs";
+
+    private static final List<String> NAMES = List.of(ORDER_TOTAL, BASKET_SIZE, PAYMENT_AMOUNT, REQUEST_LATENCY_MS,
+            HASH_QUEUE_MS, HASH_MS);
+
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+
+    // Only one node should seed when sketches are merged across nodes, or history is counted twice
+    @Value("${reports.quantiles.seed-from-database:true}")
+    private boolean seedFromDatabase;
+
+    private final Map<String, QuantileSketch> sketches = NAMES.stream()
+            .collect(Collectors.toUnmodifiableMap(name -> name, name -> new QuantileSketch()));
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (!seedFromDatabase) {
+            return;
+        }
+        try (Stream<Object[]> rows = orderRepository.streamTotalsAndUnits()) {
+            rows.forEach(row -> {
+                if (row[0] != null) {
+                    sketches.get(ORDER_TOTAL).add(((Number) row[0]).doubleValue());
+                }
+                sketches.get(BASKET_SIZE).add(((Number) row[1]).doubleValue());
+            });
+        }
+        try (Stream<Double> amounts = paymentRepository.streamAmountsByStatus(Payment.PaymentStatus.COMPLETED)) {
+            amounts.forEach(amount -> {
+                if (amount != null) {
+                    sketches.get(PAYMENT_AMOUNT).add(amount);
+                }
+            });
+        }
+        System.out.println("📐 Quantile sketches seeded from " + sketches.get(ORDER_TOTAL).count() + " orders");
+    }
+
+    public void recordOrderAfterCommit(double totalAmount, int units) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                sketches.get(ORDER_TOTAL).add(totalAmount);
+                sketches.get(BASKET_SIZE).add(units);
+            }
+        });
+    }
+
+    public void recordPaymentAfterCommit(double amount) {
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                sketches.get(PAYMENT_AMOUNT).add(amount);
+            }
+        });
+    }
+
+    public void recordLatency(long nanos) {
+        sketches.get(REQUEST_LATENCY_MS).add(nanos / 1_000_000.0);
+    }
+
+    public void recordHash(long queuedNanos, long hashNanos) {
+        sketches.get(HASH_QUEUE_MS).add(queuedNanos / 1_000_000.0);
+        sketches.get(HASH_MS).add(hashNanos / 1_000_000.0);
+    }
+
+    /**
+     * @return count, p50, p90 and p99 of one distribution
+     */
+    public Map<String, Object> percentiles(String name) {
+        QuantileSketch sketch = sketches.get(name);
+        if (sketch == null) {
+            throw new RuntimeException("Unknown distribution: " + name);
+        }
+        return summarize(sketch);
+    }
+
+    /**
+     * Every sketch in its binary form, base64 encoded, keyed by distribution name.
+     */
+    public Map<String, String> export() {
+        Map<String, String> exported = new LinkedHashMap<>();
+        for (String name : NAMES) {
+            exported.put(name, Base64.getEncoder().encodeToString(sketches.get(name).toBytes()));
+        }
+        return exported;
+    }
+
+    /**
+     * Percentiles of this node's sketches merged with sketches exported by other nodes.
+     *
+     * @param peers one {@link #export()} result per other node
+     */
+    public Map<String, Object> mergedPercentiles(Iterable<Map<String, String>> peers) {
+        Map<String, QuantileSketch> merged = new LinkedHashMap<>();
+        for (String name : NAMES) {
+            QuantileSketch sketch = new QuantileSketch();
+            sketch.merge(sketches.get(name));
+            merged.put(name, sketch);
+        }
+        for (Map<String, String> peer : peers) {
+            peer.forEach((name, encoded) -> {
+                QuantileSketch target = merged.get(name);
+                if (target == null) {
+                    throw new RuntimeException("Unknown distribution: " + name);
+                }
+                byte[] bytes;
+                try {
+                    bytes = Base64.getDecoder().decode(encoded);
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeException("Corrupt quantile sketch");
+                }
+                target.merge(QuantileSketch.fromBytes(bytes));
+            });
+        }
+
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        merged.forEach((name, sketch) -> percentiles.put(name, summarize(sketch)));
+        return percentiles;
+    }
+
+    private static Map<String, Object> summarize(QuantileSketch sketch) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", sketch.count());
+        values.put("p50", sketch.quantile(0.50));
+        values.put("p90", sketch.quantile(0.90));
+        values.put("p99", sketch.quantile(0.99));
+        return values;
+    }
+}
@@ -0,0 +1,289 @@
+package org.pharmacy.api.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.model.Order;
+import org.pharmacy.api.model.OrderItem;
+import org.pharmacy.api.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the stock reservations of unpaid orders and lets them expire.
+ *
+ * Reservations sit in a hashed timing wheel: each one lands in the bucket of its deadline tick, and
+ * every tick only looks at a single bucket, so the cost of a tick does not depend on how many carts
+ * are open. Orders whose reservations expire in the same pass are cancelled in one update, and their
+ * stock is given back in one release once that update has committed.
+ *
+ * A reservation leaves the wheel exactly once: settled by payment/status change, or expired. If the
+ * cancellation fails the reservations go back on the wheel and are retried a few seconds later.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationExpiryWheel {
+
+    private static final int WHEEL_SIZE = 512;
+    private static final long RETRY_DELAY_MILLIS = 5_000;
+
+    private final InventoryReservationEngine inventoryReservationEngine;
+    private final OrderRepository orderRepository;
+    private final MetricsLedger metricsLedger;
+    private final SalesRollupService salesRollupService;
+    private final OrderFactStore orderFactStore;
+    private final CustomerSummaryService customerSummaryService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${inventory.reservation-ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${inventory.reservation-tick-ms:1000}")
+    private long tickMillis;
+
+    private final long startMillis = System.currentTimeMillis();
+    private final List<Deque<Reservation>> buckets = createBuckets();
+    private final Map<Long, Reservation> byOrder = new ConcurrentHashMap<>();
+    private final Set<Long> expiring = ConcurrentHashMap.newKeySet();
+    private volatile long processedTick;
+    private TransactionTemplate transaction;
+
+    @PostConstruct
+    void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Start the TTL for an order's reservation once the order has actually been committed.
+     */
+    public void holdAfterCommit(Long orderId, Long userId, Map<Long, Integer> quantities) {
+        Map<Long, Integer> held = Map.copyOf(quantities);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                schedule(orderId, userId, held, deadlineTick(System.currentTimeMillis() + ttlMinutes * 60_000));
+            }
+        });
+    }
+
+    /**
+     * Take an order's reservation off the wheel. When the surrounding transaction commits the stock is
+     * committed (order moved on) or released (order cancelled); on rollback the reservation goes back
+     * on the wheel with its original deadline.
+     *
+     * @return false when the order holds no reservation, e.g. because it already expired
+     */
+    public boolean settle(Long orderId, boolean commit) {
+        Reservation reservation = byOrder.remove(orderId);
+        if (reservation == null || !reservation.claimed.compareAndSet(false, true)) {
+            return false;
+        }
+
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                schedule(orderId, reservation.userId, reservation.quantities, reservation.deadlineTick);
+            } else if (commit) {
+                inventoryReservationEngine.commit(reservation.quantities);
+            } else {
+                inventoryReservationEngine.release(reservation.quantities);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * True while an expiry pass that has claimed the order's reservation is cancelling the order. That
+     * pass gives the stock back whether or not it gets to cancel the order itself.
+     */
+    public boolean isExpiring(Long orderId) {
+        return expiring.contains(orderId);
+    }
+
+    @Scheduled(fixedRateString = "${inventory.reservation-tick-ms:1000}")
+    public void advance() {
+        long targetTick = (System.currentTimeMillis() - startMillis) / tickMillis;
+        List<Reservation> expired = new ArrayList<>();
+
+        while (processedTick < targetTick) {
+            long tick = processedTick + 1;
+            Deque<Reservation> bucket = buckets.get((int) (tick & (WHEEL_SIZE - 1)));
+            synchronized (bucket) {
+                Iterator<Reservation> it = bucket.iterator();
+                while (it.hasNext()) {
+                    Reservation reservation = it.next();
+                    if (reservation.claimed.get()) {
+                        it.remove();
+                    } else if (reservation.deadlineTick <= tick && reservation.claimed.compareAndSet(false, true)) {
+                        it.remove();
+                        expiring.add(reservation.orderId);
+                        byOrder.remove(reservation.orderId, reservation);
+                        expired.add(reservation);
+                    }
+                }
+            }
+            processedTick = tick;
+        }
+
+        if (!expired.isEmpty()) {
+            expire(expired);
+        }
+    }
+
+    /**
+     * Rebuild reservations for orders that were still unpaid when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restorePendingReservations() {
+        long now = System.currentTimeMillis();
+        List<Order> expiredOrders = new ArrayList<>();
+
+        for (Order order : orderRepository.findWithItemsByStatus(Order.OrderStatus.PENDING)) {
+            long createdAt = order.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            long deadline = createdAt + ttlMinutes * 60_000;
+
+            Map<Long, Integer> quantities = new HashMap<>();
+            for (OrderItem item : order.getItems()) {
+                quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+
+            if (deadline > now && inventoryReservationEngine.reserve(quantities).isEmpty()) {
+                schedule(order.getId(), order.getUser().getId(), quantities, deadlineTick(deadline));
+            } else {
+                expiredOrders.add(order);
+            }
+        }
+
+        if (!expiredOrders.isEmpty()) {
+            // No stock was reserved for these, so a failure only leaves them PENDING until the next start
+            List<Long> orderIds = expiredOrders.stream().map(Order::getId).toList();
+            try {
+                salesRollupService.recordCommitted(cancelStillPending(orderIds), Order.OrderStatus.CANCELLED);
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Could not cancel expired orders " + orderIds + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void expire(List<Reservation> expired) {
+        Map<Long, Integer> released = new HashMap<>();
+        List<Long> orderIds = new ArrayList<>(expired.size());
+        for (Reservation reservation : expired) {
+            reservation.quantities.forEach((productId, quantity) -> released.merge(productId, quantity, Integer::sum));
+            orderIds.add(reservation.orderId);
+        }
+
+        try {
+            List<Long> cancelled;
+            try {
+                cancelled = cancelStillPending(orderIds);
+            } catch (RuntimeException e) {
+                // The orders are still PENDING and keep their stock until the retry
+                System.out.println("⚠️ Could not cancel expired orders " + orderIds + ", will retry: " + e.getMessage());
+                long retryTick = deadlineTick(System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+                expired.forEach(reservation -> schedule(reservation.orderId, reservation.userId,
+                        reservation.quantities, retryTick));
+                return;
+            }
+
+            // Orders that were no longer PENDING were cancelled elsewhere after this pass claimed their
+            // reservation, which left the stock for this pass to give back
+            inventoryReservationEngine.release(released);
+            salesRollupService.recordCommitted(cancelled, Order.OrderStatus.CANCELLED);
+        } finally {
+            orderIds.forEach(expiring::remove);
+        }
+    }
+
+    /**
+     * Cancel those of the orders that are still PENDING. The customer summaries are updated in the same
+     * transaction, the ledger and the fact store once it commits, each for exactly the orders cancelled.
+     *
+     * @return ids of the orders that were cancelled
+     */
+    private List<Long> cancelStillPending(Collection<Long> orderIds) {
+        return transaction.execute(status -> {
+            List<Object[]> pending = orderRepository.findOwnersAndTotals(orderIds, Order.OrderStatus.PENDING);
+            List<Long> pendingIds = pending.stream().map(row -> (Long) row[0]).toList();
+            if (pendingIds.isEmpty()) {
+                return pendingIds;
+            }
+            int cancelled = orderRepository.transitionStatus(pendingIds, Order.OrderStatus.PENDING,
+                    Order.OrderStatus.CANCELLED, LocalDateTime.now());
+            if (cancelled != pendingIds.size()) {
+                // One of them moved on between the two statements; roll back rather than guess which
+                throw new IllegalStateException("Orders changed while being cancelled");
+            }
+
+            Map<Long, Long> cancelledByUser = new HashMap<>();
+            for (Object[] row : pending) {
+                Long orderId = (Long) row[0];
+                Double amount = row[2] == null ? null : ((Number) row[2]).doubleValue();
+                cancelledByUser.merge((Long) row[1], 1L, Long::sum);
+                metricsLedger.orderStatusChangedAfterCommit(amount, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
+                orderFactStore.statusChangedAfterCommit(orderId, Order.OrderStatus.CANCELLED);
+            }
+            customerSummaryService.pendingOrdersCancelled(cancelledByUser);
+            return pendingIds;
+        });
+    }
+
+    private void schedule(Long orderId, Long userId, Map<Long, Integer> quantities, long deadlineTick) {
+        // Never schedule into a tick that has already been processed
+        long tick = Math.max(deadlineTick, processedTick + 1);
+        Reservation reservation = new Reservation(orderId, userId, quantities, tick);
+
+        Reservation previous = byOrder.put(orderId, reservation);
+        if (previous != null) {
+            previous.claimed.set(true);
+        }
+
+        Deque<Reservation> bucket = buckets.get((int) (tick & (WHEEL_SIZE - 1)));
+        synchronized (bucket) {
+            bucket.add(reservation);
+        }
+    }
+
+    private long deadlineTick(long deadlineMillis) {
+        return (deadlineMillis - startMillis + tickMillis - 1) / tickMillis;
+    }
+
+    private static List<Deque<Reservation>> createBuckets() {
+        List<Deque<Reservation>> created = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            created.add(new ArrayDeque<>());
+        }
+        return created;
+    }
+
+    private static final class Reservation {
+        final Long orderId;
+        final Long userId;
+        final Map<Long, Integer> quantities;
+        final long deadlineTick;
+        final AtomicBoolean claimed = new AtomicBoolean();
+
+        Reservation(Long orderId, Long userId, Map<Long, Integer> quantities, long deadlineTick) {
+            this.orderId = orderId;
+            this.userId = userId;
+            this.quantities = quantities;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
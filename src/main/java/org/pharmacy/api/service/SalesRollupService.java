@@ -0,0 +1,378 @@
+package org.pharmacy.api.service;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.dto.SalesBucket;
+import org.pharmacy.api.model.Order;
+import org.pharmacy.api.model.OrderItem;
+import org.pharmacy.api.model.SalesRollup;
+import org.pharmacy.api.repository.OrderRepository;
+import org.pharmacy.api.repository.SalesRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Order counts and revenue per hour, day or week, read from pre-aggregated rows.
+ *
+ * Every status change is recorded when it happens: the order's amount goes into the current hour
+ * under its new status, once in total and once per product category among its lines. Changes collect
+ * in memory and are merged into hourly {@link SalesRollup} rows on a short fixed delay, so a busy hour
+ * costs one row update per flush instead of one per order. Hourly rows past the retention window are
+ * compacted into daily rows; counts and sums add up and minima and maxima fold, so no order is read
+ * again. A year of daily buckets is at most 365 rows plus the hours not yet compacted.
+ *
+ * An empty rollup table is backfilled from the orders at startup, using placement at createdAt and
+ * the current status at updatedAt, which is all the history the orders table keeps.
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private static final String UNCATEGORIZED = "Uncategorized";
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final OrderRepository orderRepository;
+
+    @Value("${reports.rollup.hourly-retention-hours:48}")
+    private long hourlyRetentionHours;
+
+    private final Map<Key, Aggregate> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Record an order entering a status once the surrounding transaction commits; its lines must be loaded.
+     */
+    public void recordAfterCommit(Order order, Order.OrderStatus status) {
+        Map<String, Double> amounts = new HashMap<>();
+        amounts.put(SalesRollup.ALL_CATEGORIES, order.getTotalAmount() == null ? 0 : order.getTotalAmount());
+        for (OrderItem item : order.getItems()) {
+            addLine(amounts, item.getProduct().getCategory(), item.getSubtotal());
+        }
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                add(LocalDateTime.now(), status, amounts);
+            }
+        });
+    }
+
+    /**
+     * Record orders that have already been moved to a status, e.g. by a bulk update.
+     */
+    public void recordCommitted(Collection<Long> orderIds, Order.OrderStatus status) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        forEachOrder(orderRepository.findRollupLines(orderIds).iterator(), (order, amounts) -> add(now, status, amounts));
+    }
+
+    @Scheduled(fixedDelayString = "${reports.rollup.flush-interval-ms:5000}")
+    @Transactional
+    public void flush() {
+        Map<Key, Aggregate> drained = new HashMap<>();
+        for (Key key : pending.keySet()) {
+            Aggregate aggregate = pending.remove(key);
+            if (aggregate != null) {
+                drained.put(key, aggregate);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        // Keep the changes for the next run rather than losing them
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (!committed) {
+                drained.forEach((key, aggregate) -> pending.merge(key, aggregate, Aggregate::merge));
+            }
+        });
+        merge(SalesRollup.Granularity.HOUR, drained);
+    }
+
+    /**
+     * Fold whole days of hourly rows older than the retention window into daily rows.
+     */
+    @Scheduled(fixedDelayString = "${reports.rollup.compact-interval-ms:3600000}")
+    @Transactional
+    public void compact() {
+        List<SalesRollup> hourly = salesRollupRepository.findByGranularityAndBucketStartBefore(
+                SalesRollup.Granularity.HOUR, compactionCutoff());
+        if (hourly.isEmpty()) {
+            return;
+        }
+
+        Map<Key, Aggregate> daily = new HashMap<>();
+        for (SalesRollup row : hourly) {
+            Key key = new Key(row.getBucketStart().truncatedTo(ChronoUnit.DAYS), row.getStatus(), row.getCategory());
+            daily.merge(key, Aggregate.of(row), Aggregate::merge);
+        }
+        merge(SalesRollup.Granularity.DAY, daily);
+        salesRollupRepository.deleteAllInBatch(hourly);
+
+        System.out.println("🗜️ Compacted " + hourly.size() + " hourly sales rollups into " + daily.size() + " daily rows");
+    }
+
+    // Runs before pending reservations are restored, so orders that expired while down are counted as cancelled now
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (salesRollupRepository.count() > 0) {
+            return;
+        }
+
+        LocalDateTime cutoff = compactionCutoff();
+        Map<Key, Aggregate> daily = new HashMap<>();
+        long[] orders = {0};
+        try (Stream<Object[]> lines = orderRepository.streamRollupLines()) {
+            forEachOrder(lines.iterator(), (order, amounts) -> {
+                Order.OrderStatus status = (Order.OrderStatus) order[1];
+                LocalDateTime createdAt = (LocalDateTime) order[3];
+                LocalDateTime updatedAt = order[4] == null ? createdAt : (LocalDateTime) order[4];
+
+                backfill(daily, cutoff, createdAt, Order.OrderStatus.PENDING, amounts);
+                if (status != Order.OrderStatus.PENDING) {
+                    backfill(daily, cutoff, updatedAt, status, amounts);
+                }
+                orders[0]++;
+            });
+        }
+        if (!daily.isEmpty()) {
+            merge(SalesRollup.Granularity.DAY, daily);
+        }
+
+        System.out.println("📈 Sales rollups backfilled from " + orders[0] + " orders");
+    }
+
+    /**
+     * Buckets of orders that entered {@code status} between {@code from} and {@code to}, both inclusive.
+     * Weeks start on Monday; empty buckets are left out. Hourly buckets only cover the days whose hourly
+     * rows have not been compacted yet.
+     */
+    @Transactional(readOnly = true)
+    public List<SalesBucket> series(String granularity, String status, String category, LocalDate from, LocalDate to) {
+        Interval interval = Interval.parse(granularity);
+        Order.OrderStatus orderStatus = parseStatus(status);
+        String rollupCategory = category == null || category.isBlank() ? SalesRollup.ALL_CATEGORIES : category;
+
+        long maxDays = maxDays(interval);
+        LocalDate last = to != null ? to : LocalDate.now();
+        LocalDate first = from != null ? from : last.minusDays(Math.min(DEFAULT_RANGE_DAYS, maxDays) - 1);
+        if (first.isAfter(last)) {
+            throw new RuntimeException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(first, last) >= maxDays) {
+            throw new RuntimeException("Range too long for " + interval.name().toLowerCase(Locale.ROOT)
+                    + " buckets, at most " + maxDays + " days");
+        }
+        if (interval == Interval.HOUR && first.isBefore(compactionCutoff().toLocalDate())) {
+            throw new RuntimeException("Hourly buckets start at " + compactionCutoff().toLocalDate()
+                    + ", use day or week buckets for older orders");
+        }
+
+        LocalDateTime start = first.atStartOfDay();
+        LocalDateTime end = last.plusDays(1).atStartOfDay();
+        List<SalesRollup> rows = new ArrayList<>(salesRollupRepository.findRange(
+                SalesRollup.Granularity.HOUR, orderStatus, rollupCategory, start, end));
+        if (interval != Interval.HOUR) {
+            rows.addAll(salesRollupRepository.findRange(
+                    SalesRollup.Granularity.DAY, orderStatus, rollupCategory, start, end));
+        }
+
+        TreeMap<LocalDateTime, Aggregate> buckets = new TreeMap<>();
+        for (SalesRollup row : rows) {
+            buckets.merge(interval.bucketOf(row.getBucketStart()), Aggregate.of(row), Aggregate::merge);
+        }
+
+        List<SalesBucket> series = new ArrayList<>(buckets.size());
+        buckets.forEach((bucketStart, aggregate) -> series.add(
+                new SalesBucket(bucketStart, aggregate.count, aggregate.sum, aggregate.min, aggregate.max)));
+        return series;
+    }
+
+    private void add(LocalDateTime at, Order.OrderStatus status, Map<String, Double> amounts) {
+        LocalDateTime hour = at.truncatedTo(ChronoUnit.HOURS);
+        amounts.forEach((category, amount) ->
+                pending.merge(new Key(hour, status, category), Aggregate.of(amount), Aggregate::merge));
+    }
+
+    private void backfill(Map<Key, Aggregate> daily, LocalDateTime cutoff, LocalDateTime at,
+                          Order.OrderStatus status, Map<String, Double> amounts) {
+        if (!at.isBefore(cutoff)) {
+            add(at, status, amounts);
+            return;
+        }
+        LocalDateTime day = at.truncatedTo(ChronoUnit.DAYS);
+        amounts.forEach((category, amount) ->
+                daily.merge(new Key(day, status, category), Aggregate.of(amount), Aggregate::merge));
+    }
+
+    /**
+     * Add aggregates to the stored rows of one granularity, creating the rows that do not exist yet.
+     */
+    private void merge(SalesRollup.Granularity granularity, Map<Key, Aggregate> aggregates) {
+        Set<LocalDateTime> bucketStarts = aggregates.keySet().stream()
+                .map(key -> key.bucketStart)
+                .collect(Collectors.toSet());
+
+        Map<Key, SalesRollup> stored = new HashMap<>();
+        for (SalesRollup row : salesRollupRepository.findByGranularityAndBucketStartIn(granularity, bucketStarts)) {
+            stored.put(new Key(row.getBucketStart(), row.getStatus(), row.getCategory()), row);
+        }
+
+        List<SalesRollup> changed = new ArrayList<>(aggregates.size());
+        aggregates.forEach((key, aggregate) -> {
+            SalesRollup row = stored.get(key);
+            if (row == null) {
+                row = new SalesRollup(null, granularity, key.bucketStart, key.status, key.category,
+                        aggregate.count, aggregate.sum, aggregate.min, aggregate.max);
+            } else {
+                Aggregate merged = Aggregate.of(row).merge(aggregate);
+                row.setOrderCount(merged.count);
+                row.setAmount(merged.sum);
+                row.setMinAmount(merged.min);
+                row.setMaxAmount(merged.max);
+            }
+            changed.add(row);
+        });
+        salesRollupRepository.saveAll(changed);
+    }
+
+    private long maxDays(Interval interval) {
+        if (interval != Interval.HOUR) {
+            return interval.maxDays;
+        }
+        // Hourly rows are kept from the compaction cutoff's day through today
+        long retainedDays = ChronoUnit.DAYS.between(compactionCutoff().toLocalDate(), LocalDate.now()) + 1;
+        return Math.min(interval.maxDays, retainedDays);
+    }
+
+    private LocalDateTime compactionCutoff() {
+        // Only whole days leave the hourly rows
+        return LocalDateTime.now().minusHours(hourlyRetentionHours).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    /**
+     * Walk line rows ordered by order id, handing each order's first row and its amounts by category.
+     */
+    private static void forEachOrder(Iterator<Object[]> lines, BiConsumer<Object[], Map<String, Double>> visitor) {
+        Object[] order = null;
+        Map<String, Double> amounts = null;
+        while (lines.hasNext()) {
+            Object[] line = lines.next();
+            if (order == null || !order[0].equals(line[0])) {
+                if (order != null) {
+                    visitor.accept(order, amounts);
+                }
+                order = line;
+                amounts = new HashMap<>();
+                amounts.put(SalesRollup.ALL_CATEGORIES, line[2] == null ? 0 : ((Number) line[2]).doubleValue());
+            }
+            if (line[6] != null) {
+                addLine(amounts, (String) line[5], ((Number) line[6]).doubleValue());
+            }
+        }
+        if (order != null) {
+            visitor.accept(order, amounts);
+        }
+    }
+
+    private static void addLine(Map<String, Double> amounts, String category, Double subtotal) {
+        if (subtotal != null) {
+            amounts.merge(category == null || category.isBlank() ? UNCATEGORIZED : category, subtotal, Double::sum);
+        }
+    }
+
+    private static Order.OrderStatus parseStatus(String status) {
+        try {
+            return Order.OrderStatus.valueOf(status.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid order status: " + status);
+        }
+    }
+
+    private enum Interval {
+        HOUR(31),
+        DAY(3660),
+        WEEK(3660);
+
+        private final int maxDays;
+
+        Interval(int maxDays) {
+            this.maxDays = maxDays;
+        }
+
+        LocalDateTime bucketOf(LocalDateTime time) {
+            return switch (this) {
+                case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                case WEEK -> time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            };
+        }
+
+        static Interval parse(String granularity) {
+            try {
+                return valueOf(granularity.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid granularity. Use hour, day or week");
+            }
+        }
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Key {
+        private final LocalDateTime bucketStart;
+        private final Order.OrderStatus status;
+        private final String category;
+    }
+
+    /**
+     * Count, sum, min and max of a set of amounts; merging two sets only needs their aggregates.
+     */
+    @AllArgsConstructor
+    private static final class Aggregate {
+        private final long count;
+        private final double sum;
+        private final double min;
+        private final double max;
+
+        static Aggregate of(double amount) {
+            return new Aggregate(1, amount, amount, amount);
+        }
+
+        static Aggregate of(SalesRollup row) {
+            return new Aggregate(row.getOrderCount(), row.getAmount(), row.getMinAmount(), row.getMaxAmount());
+        }
+
+        Aggregate merge(Aggregate other) {
+            return new Aggregate(count + other.count, sum + other.sum,
+                    Math.min(min, other.min), Math.max(max, other.max));
+        }
+    }
+}
@@ -6,12 +6,15 @@
  */
 package org.pharmacy.api.service;
 
+import org.pharmacy.api.dto.CursorPage;
+import org.pharmacy.api.dto.PageCursor;
 import org.pharmacy.api.dto.SupportTicketRequest;
 import org.pharmacy.api.model.SupportTicket;
 import org.pharmacy.api.model.User;
 import org.pharmacy.api.repository.SupportTicketRepository;
 import org.pharmacy.api.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
@@ -23,6 +26,8 @@ public class SupportService {
 
     private final SupportTicketRepository supportTicketRepository;
     private final UserRepository userRepository;
+    private final MetricsLedger metricsLedger;
+    private final CustomerSummaryService customerSummaryService;
 
     @Transactional
     public SupportTicket createTicket(SupportTicketRequest request, String userEmail) {
@@ -43,7 +48,10 @@ public class SupportService {
             }
         }
 
-        return supportTicketRepository.save(ticket);
+        ticket = supportTicketRepository.save(ticket);
+        customerSummaryService.ticketStatusChanged(user.getId(), null, SupportTicket.TicketStatus.OPEN);
+        metricsLedger.ticketStatusChangedAfterCommit(null, SupportTicket.TicketStatus.OPEN);
+        return ticket;
     }
 
     @Transactional(readOnly = true)
@@ -60,8 +68,12 @@ public class SupportService {
     }
 
     @Transactional(readOnly = true)
-    public List<SupportTicket> getAllTickets() {
-        return supportTicketRepository.findAll();
+    public CursorPage<SupportTicket> getTickets(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<SupportTicket> rows = after == null
+                ? supportTicketRepository.findFirstPage(Limit.of(limit + 1))
+                : supportTicketRepository.findPageAfter(after.getCreatedAt(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, SupportTicket::getCreatedAt, SupportTicket::getId);
     }
 
     @Transactional
@@ -69,9 +81,13 @@ public class SupportService {
         SupportTicket ticket = getTicketById(id);
 
         try {
+            SupportTicket.TicketStatus oldStatus = ticket.getStatus();
             ticket.setStatus(SupportTicket.TicketStatus.valueOf(status.toUpperCase()));
             ticket.setUpdatedAt(LocalDateTime.now());
-            return supportTicketRepository.save(ticket);
+            ticket = supportTicketRepository.save(ticket);
+            customerSummaryService.ticketStatusChanged(ticket.getUser().getId(), oldStatus, ticket.getStatus());
+            metricsLedger.ticketStatusChangedAfterCommit(oldStatus, ticket.getStatus());
+            return ticket;
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid status: " + status);
         }
@@ -80,10 +96,15 @@ public class SupportService {
     @Transactional
     public SupportTicket addResponse(Long id, String response) {
         SupportTicket ticket = getTicketById(id);
+        SupportTicket.TicketStatus oldStatus = ticket.getStatus();
         ticket.setResponse(response);
         ticket.setStatus(SupportTicket.TicketStatus.RESOLVED);
         ticket.setUpdatedAt(LocalDateTime.now());
-        return supportTicketRepository.save(ticket);
+        ticket = supportTicketRepository.save(ticket);
+        customerSummaryService.ticketStatusChanged(ticket.getUser().getId(), oldStatus,
+                SupportTicket.TicketStatus.RESOLVED);
+        metricsLedger.ticketStatusChangedAfterCommit(oldStatus, SupportTicket.TicketStatus.RESOLVED);
+        return ticket;
     }
 
     public String mockChatWithPharmacist(String message) {
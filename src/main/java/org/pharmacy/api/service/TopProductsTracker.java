@@ -0,0 +1,217 @@
+package org.pharmacy.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.pharmacy.api.dto.ProductCard;
+import org.pharmacy.api.dto.TopProduct;
+import org.pharmacy.api.repository.OrderItemRepository;
+import org.pharmacy.api.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Best-selling products over the last hour, day and week, without a GROUP BY over order lines.
+ *
+ * Each window is a ring of count-min sketches, one per time slice, plus a running sum of the live
+ * slices. A sold line adds its units to the current slice and the sum and then offers the product to
+ * a bounded min-heap of candidates ranked by their estimate in the sum, so an update costs a fixed
+ * number of counter writes whatever the catalogue size. When a slice ages out it is subtracted from
+ * the sum and cleared, and candidate estimates are refreshed, which makes older sales drop out of
+ * the ranking slice by slice.
+ */
+@Component
+@RequiredArgsConstructor
+public class TopProductsTracker {
+
+    public static final int MAX_LIMIT = 50;
+
+    private static final int CANDIDATES = 2 * MAX_LIMIT;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH_BITS = 10;
+
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+
+    private final Map<String, Window> windows = Map.of(
+            "1h", new Window(Duration.ofMinutes(5), 12),
+            "24h", new Window(Duration.ofHours(1), 24),
+            "7d", new Window(Duration.ofHours(6), 28));
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long now = System.currentTimeMillis();
+        long[] lines = {0};
+        try (Stream<Object[]> rows = orderItemRepository.streamSoldSince(LocalDateTime.now().minusDays(7))) {
+            rows.forEach(row -> {
+                long soldAt = ((LocalDateTime) row[2]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                record((Long) row[0], (Integer) row[1], soldAt, now);
+                lines[0]++;
+            });
+        }
+        System.out.println("🏆 Top products seeded from " + lines[0] + " order lines");
+    }
+
+    /**
+     * Count ordered units towards the best-seller windows once the order commits.
+     */
+    public void recordSalesAfterCommit(Map<Long, Integer> quantities) {
+        Map<Long, Integer> sold = Map.copyOf(quantities);
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                long now = System.currentTimeMillis();
+                sold.forEach((productId, quantity) -> record(productId, quantity, now, now));
+            }
+        });
+    }
+
+    /**
+     * @param window {@code 1h}, {@code 24h} or {@code 7d}
+     * @return up to {@code limit} products, most units first; unit counts are estimates that may
+     * slightly overcount
+     */
+    @Transactional(readOnly = true)
+    public List<TopProduct> top(String window, int limit) {
+        Window selected = windows.get(window);
+        if (selected == null) {
+            throw new RuntimeException("Unsupported window: " + window + ". Use 1h, 24h or 7d");
+        }
+        List<long[]> ranked = selected.top(Math.min(Math.max(limit, 1), MAX_LIMIT), System.currentTimeMillis());
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ProductCard> cards = productRepository.findCardsByIdIn(
+                        ranked.stream().map(entry -> entry[0]).toList()).stream()
+                .collect(Collectors.toMap(ProductCard::getId, Function.identity()));
+
+        List<TopProduct> top = new ArrayList<>();
+        for (long[] entry : ranked) {
+            ProductCard card = cards.get(entry[0]);
+            if (card != null) {
+                top.add(new TopProduct(card.getId(), card.getName(), card.getBrand(), card.getCategory(),
+                        card.getPrice(), card.getImageUrl(), entry[1]));
+            }
+        }
+        return top;
+    }
+
+    private void record(Long productId, int units, long soldAt, long now) {
+        if (units <= 0) {
+            return;
+        }
+        for (Window window : windows.values()) {
+            window.add(productId, units, soldAt, now);
+        }
+    }
+
+    /**
+     * A sliding window of {@code slices.length} slices; slot {@code id % length} holds slice {@code id}.
+     */
+    private static final class Window {
+        private final long sliceMillis;
+        private final CountMinSketch[] slices;
+        private final CountMinSketch live = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH_BITS);
+        private final Map<Long, Candidate> candidates = new HashMap<>();
+        private final PriorityQueue<Candidate> heap = new PriorityQueue<>(Comparator.comparingLong(c -> c.units));
+        private long currentSlice = Long.MIN_VALUE;
+
+        Window(Duration slice, int sliceCount) {
+            this.sliceMillis = slice.toMillis();
+            this.slices = new CountMinSketch[sliceCount];
+            for (int i = 0; i < sliceCount; i++) {
+                slices[i] = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH_BITS);
+            }
+        }
+
+        synchronized void add(long productId, long units, long soldAt, long now) {
+            advanceTo(now / sliceMillis);
+            long sliceId = Math.min(soldAt / sliceMillis, currentSlice);
+            if (sliceId <= currentSlice - slices.length) {
+                return;
+            }
+            slices[Math.floorMod(sliceId, slices.length)].add(productId, units);
+            live.add(productId, units);
+            offer(productId);
+        }
+
+        synchronized List<long[]> top(int limit, long now) {
+            advanceTo(now / sliceMillis);
+            return candidates.values().stream()
+                    .sorted(Comparator.comparingLong((Candidate c) -> c.units).reversed()
+                            .thenComparingLong(c -> c.productId))
+                    .limit(limit)
+                    .map(c -> new long[] {c.productId, c.units})
+                    .toList();
+        }
+
+        private void offer(long productId) {
+            long units = live.estimate(productId);
+            Candidate candidate = candidates.get(productId);
+            if (candidate != null) {
+                heap.remove(candidate);
+                candidate.units = units;
+                heap.add(candidate);
+                return;
+            }
+            if (candidates.size() >= CANDIDATES) {
+                if (heap.peek().units >= units) {
+                    return;
+                }
+                candidates.remove(heap.poll().productId);
+            }
+            candidate = new Candidate(productId, units);
+            candidates.put(productId, candidate);
+            heap.add(candidate);
+        }
+
+        private void advanceTo(long slice) {
+            if (currentSlice == Long.MIN_VALUE) {
+                currentSlice = slice;
+                return;
+            }
+            if (slice <= currentSlice) {
+                return;
+            }
+
+            // Only the last slices.length ids can still be in the ring, so a long gap clears it once
+            for (long id = Math.max(currentSlice + 1, slice - slices.length + 1); id <= slice; id++) {
+                int slot = Math.floorMod(id, slices.length);
+                live.subtract(slices[slot]);
+                slices[slot].clear();
+            }
+            currentSlice = slice;
+
+            heap.clear();
+            candidates.values().removeIf(candidate -> {
+                candidate.units = live.estimate(candidate.productId);
+                return candidate.units <= 0;
+            });
+            heap.addAll(candidates.values());
+        }
+    }
+
+    private static final class Candidate {
+        private final long productId;
+        private long units;
+
+        Candidate(long productId, long units) {
+            this.productId = productId;
+            this.units = units;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.pharmacy.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedBitmapTest {
+
+    // Spans three chunks; enough values per chunk to push the dense ones past the array limit
+    private static final int RANGE = 3 * 65536;
+
+    @Test
+    void addRemoveAndContainsMatchABitSet() {
+        Random random = new Random(1);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet oracle = new BitSet();
+
+        for (int i = 0; i < 40_000; i++) {
+            int value = random.nextInt(RANGE);
+            bitmap.add(value);
+            oracle.set(value);
+        }
+        assertSame(oracle, bitmap);
+
+        // Removing most values turns the dense chunks back into arrays
+        for (int i = 0; i < 400_000; i++) {
+            int value = random.nextInt(RANGE);
+            bitmap.remove(value);
+            oracle.clear(value);
+        }
+        assertSame(oracle, bitmap);
+        for (int value = 0; value < RANGE; value += 7) {
+            assertEquals(oracle.get(value), bitmap.contains(value), "contains(" + value + ")");
+        }
+    }
+
+    @Test
+    void addingAndRemovingTwiceIsHarmless() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(5);
+        bitmap.add(5);
+        assertEquals(1, bitmap.cardinality());
+
+        bitmap.remove(5);
+        bitmap.remove(5);
+        bitmap.remove(70_000);
+        assertEquals(0, bitmap.cardinality());
+        assertFalse(bitmap.contains(5));
+    }
+
+    @Test
+    void andAndOrMatchABitSetForSparseAndDenseChunks() {
+        Random random = new Random(2);
+        int[][] sizes = {{50, 50}, {50, 30_000}, {30_000, 50}, {30_000, 30_000}};
+        for (int[] size : sizes) {
+            BitSet left = new BitSet();
+            BitSet right = new BitSet();
+            CompressedBitmap a = fill(random, size[0], left);
+            CompressedBitmap b = fill(random, size[1], right);
+
+            BitSet and = (BitSet) left.clone();
+            and.and(right);
+            BitSet or = (BitSet) left.clone();
+            or.or(right);
+
+            assertSame(and, a.and(b));
+            assertEquals(and.cardinality(), a.andCardinality(b));
+            assertSame(or, a.or(b));
+            // Neither operand is changed
+            assertSame(left, a);
+            assertSame(right, b);
+        }
+    }
+
+    @Test
+    void andOfDisjointSetsIsEmpty() {
+        CompressedBitmap evens = new CompressedBitmap();
+        CompressedBitmap odds = new CompressedBitmap();
+        for (int value = 0; value < 20_000; value++) {
+            (value % 2 == 0 ? evens : odds).add(value);
+        }
+
+        assertEquals(0, evens.and(odds).cardinality());
+        assertEquals(0, evens.andCardinality(odds));
+        assertEquals(20_000, evens.or(odds).cardinality());
+    }
+
+    @Test
+    void forEachVisitsInAscendingOrderAndStopsWhenAsked() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        int[] values = {200_000, 3, 65_536, 65_535, 70_000, 0};
+        for (int value : values) {
+            bitmap.add(value);
+        }
+
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(visited::add);
+        assertEquals(List.of(0, 3, 65_535, 65_536, 70_000, 200_000), visited);
+
+        List<Integer> firstThree = new ArrayList<>();
+        bitmap.forEach(value -> {
+            firstThree.add(value);
+            return firstThree.size() < 3;
+        });
+        assertEquals(List.of(0, 3, 65_535), firstThree);
+    }
+
+    private static CompressedBitmap fill(Random random, int count, BitSet oracle) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < count; i++) {
+            int value = random.nextInt(RANGE);
+            bitmap.add(value);
+            oracle.set(value);
+        }
+        return bitmap;
+    }
+
+    private static void assertSame(BitSet expected, CompressedBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        List<Integer> values = new ArrayList<>();
+        actual.forEach(values::add);
+        assertEquals(expected.stream().boxed().toList(), values);
+        assertTrue(values.stream().allMatch(actual::contains));
+    }
+}
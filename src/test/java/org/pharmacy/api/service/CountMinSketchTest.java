@@ -0,0 +1,93 @@
+package org.pharmacy.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTest {
+
+    private static final int DEPTH = 5;
+    private static final int WIDTH_BITS = 10;
+    private static final int KEYS = 10_000;
+
+    @Test
+    void neverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH_BITS);
+        Map<Long, Long> exact = skewedStream(new Random(6), 100_000, sketch);
+
+        for (long key = 0; key < KEYS; key++) {
+            long count = exact.getOrDefault(key, 0L);
+            assertTrue(sketch.estimate(key) >= count, "key " + key + " estimated below " + count);
+        }
+    }
+
+    @Test
+    void overcountsWithinTheErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH_BITS);
+        Map<Long, Long> exact = skewedStream(new Random(7), 100_000, sketch);
+        long total = exact.values().stream().mapToLong(Long::longValue).sum();
+
+        // Each estimate exceeds the true count by at most e/width of the total, except with probability e^-depth
+        double bound = Math.E / (1 << WIDTH_BITS) * total;
+        int exceeded = 0;
+        for (long key = 0; key < KEYS; key++) {
+            if (sketch.estimate(key) - exact.getOrDefault(key, 0L) > bound) {
+                exceeded++;
+            }
+        }
+        assertTrue(exceeded <= KEYS * 2 * Math.exp(-DEPTH), exceeded + " keys over the bound");
+    }
+
+    @Test
+    void subtractingAWindowLeavesTheRest() {
+        Random random = new Random(8);
+        CountMinSketch both = new CountMinSketch(DEPTH, WIDTH_BITS);
+        CountMinSketch first = new CountMinSketch(DEPTH, WIDTH_BITS);
+        CountMinSketch second = new CountMinSketch(DEPTH, WIDTH_BITS);
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(KEYS);
+            long count = 1 + random.nextInt(5);
+            both.add(key, count);
+            (i < 12_000 ? first : second).add(key, count);
+        }
+
+        both.subtract(first);
+
+        for (long key = 0; key < KEYS; key++) {
+            assertEquals(second.estimate(key), both.estimate(key), "key " + key);
+        }
+    }
+
+    @Test
+    void clearForgetsEverything() {
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH_BITS);
+        assertEquals(0, sketch.estimate(42));
+
+        sketch.add(42, 7);
+        sketch.add(43, 3);
+        assertEquals(7, sketch.estimate(42));
+
+        sketch.clear();
+        assertEquals(0, sketch.estimate(42));
+        assertEquals(0, sketch.estimate(43));
+    }
+
+    /**
+     * Adds a Zipf-like stream to the sketch: a few keys take most of the count, as best sellers do.
+     */
+    private static Map<Long, Long> skewedStream(Random random, int events, CountMinSketch sketch) {
+        Map<Long, Long> exact = new HashMap<>();
+        for (int i = 0; i < events; i++) {
+            long key = (long) Math.floor(Math.pow(KEYS, random.nextDouble())) - 1;
+            long count = 1 + random.nextInt(3);
+            sketch.add(key, count);
+            exact.merge(key, count, Long::sum);
+        }
+        return exact;
+    }
+}
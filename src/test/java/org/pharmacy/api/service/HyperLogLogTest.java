@@ -0,0 +1,116 @@
+package org.pharmacy.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HyperLogLogTest {
+
+    // Three standard errors of 1.04 / sqrt(2^12), about 1.6% each
+    private static final double TOLERANCE = 3 * 1.04 / Math.sqrt(1 << HyperLogLog.PRECISION);
+
+    @Test
+    void estimatesWithinThreeStandardErrors() {
+        Random random = new Random(9);
+        for (int cardinality : new int[]{100, 1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add(random.nextLong());
+            }
+            assertEquals(cardinality, sketch.estimate(), cardinality * TOLERANCE, "cardinality " + cardinality);
+        }
+    }
+
+    @Test
+    void countsSequentialIdsAsWellAsRandomOnes() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 50_000; id++) {
+            sketch.add(id);
+        }
+        assertEquals(50_000, sketch.estimate(), 50_000 * TOLERANCE);
+    }
+
+    @Test
+    void ignoresDuplicates() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertEquals(0, sketch.estimate());
+
+        for (long id = 0; id < 20_000; id++) {
+            sketch.add(id);
+        }
+        long estimate = sketch.estimate();
+        byte[] registers = sketch.toBytes();
+
+        for (int pass = 0; pass < 3; pass++) {
+            for (long id = 0; id < 20_000; id++) {
+                sketch.add(id);
+            }
+        }
+        assertEquals(estimate, sketch.estimate());
+        assertArrayEquals(registers, sketch.toBytes());
+    }
+
+    @Test
+    void mergeIsTheSketchOfTheUnion() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        // Overlapping ranges: 0..29,999 and 20,000..49,999
+        for (long id = 0; id < 30_000; id++) {
+            left.add(id);
+            union.add(id);
+        }
+        for (long id = 20_000; id < 50_000; id++) {
+            right.add(id);
+            union.add(id);
+        }
+
+        left.merge(right);
+
+        assertArrayEquals(union.toBytes(), left.toBytes());
+        assertEquals(50_000, left.estimate(), 50_000 * TOLERANCE);
+    }
+
+    @Test
+    void survivesABinaryRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 0; id < 5_000; id++) {
+            sketch.add(id * 31);
+        }
+
+        HyperLogLog decoded = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch.estimate(), decoded.estimate());
+        assertArrayEquals(sketch.toBytes(), decoded.toBytes());
+    }
+
+    @Test
+    void rejectsCorruptOrIncompatibleInput() {
+        byte[] encoded = new HyperLogLog().toBytes();
+
+        assertThrows(RuntimeException.class, () -> HyperLogLog.fromBytes(new byte[0]));
+        assertThrows(RuntimeException.class, () -> HyperLogLog.fromBytes(Arrays.copyOf(encoded, encoded.length - 1)));
+
+        byte[] otherVersion = encoded.clone();
+        otherVersion[0]++;
+        assertThrows(RuntimeException.class, () -> HyperLogLog.fromBytes(otherVersion));
+
+        byte[] otherPrecision = encoded.clone();
+        otherPrecision[1]++;
+        assertThrows(RuntimeException.class, () -> HyperLogLog.fromBytes(otherPrecision));
+
+        // A register can never exceed 64 - precision + 1
+        byte[] impossibleRank = encoded.clone();
+        impossibleRank[2] = 64 - HyperLogLog.PRECISION + 2;
+        assertThrows(RuntimeException.class, () -> HyperLogLog.fromBytes(impossibleRank));
+
+        byte[] negativeRank = encoded.clone();
+        negativeRank[2] = -1;
+        assertThrows(RuntimeException.class, () -> HyperLogLog.fromBytes(negativeRank));
+    }
+}
@@ -0,0 +1,150 @@
+package org.pharmacy.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.pharmacy.api.model.Order;
+import org.pharmacy.api.model.OrderItem;
+import org.pharmacy.api.repository.OrderRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderFactStoreTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 9, 29, 10, 0);
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderFactStore store = new OrderFactStore(orderRepository);
+
+    @Test
+    void loadsOrdersWithTheirLines() {
+        load(List.of(
+                line(1L, Order.OrderStatus.PENDING, 30.0, MONDAY, 2, 20.0),
+                line(1L, Order.OrderStatus.PENDING, 30.0, MONDAY, 1, 10.0),
+                line(2L, Order.OrderStatus.DELIVERED, 15.0, MONDAY.plusHours(1), 3, 15.0),
+                line(3L, Order.OrderStatus.CANCELLED, 8.0, MONDAY.plusHours(2), 1, 8.0),
+                // An order without lines comes back from the outer join with null line columns
+                line(4L, Order.OrderStatus.CONFIRMED, 5.0, MONDAY.plusHours(3), null, null)));
+
+        OrderFactStore.OrderTotals totals = store.orderTotals(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(4, totals.totalCount());
+        assertEquals(1, totals.count(Order.OrderStatus.PENDING));
+        assertEquals(30.0, totals.amount(Order.OrderStatus.PENDING));
+        assertEquals(15.0, totals.amount(Order.OrderStatus.DELIVERED));
+        assertEquals(8.0, totals.amount(Order.OrderStatus.CANCELLED));
+        assertEquals(1, totals.count(Order.OrderStatus.CONFIRMED));
+        assertEquals(0, totals.count(Order.OrderStatus.SHIPPED));
+
+        // Lines of cancelled orders do not count
+        OrderFactStore.LineTotals lines = store.lineTotals(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(6, lines.units());
+        assertEquals(45.0, lines.revenue());
+    }
+
+    @Test
+    void filtersOnAHalfOpenCreationRange() {
+        load(List.of(
+                line(1L, Order.OrderStatus.DELIVERED, 10.0, MONDAY, 1, 10.0),
+                line(2L, Order.OrderStatus.DELIVERED, 20.0, MONDAY.plusDays(1), 2, 20.0),
+                line(3L, Order.OrderStatus.DELIVERED, 40.0, MONDAY.plusDays(2), 4, 40.0)));
+
+        long from = OrderFactStore.toMillis(MONDAY.plusDays(1));
+        long to = OrderFactStore.toMillis(MONDAY.plusDays(2));
+
+        assertEquals(1, store.orderTotals(from, to).totalCount());
+        assertEquals(20.0, store.orderTotals(from, to).amount(Order.OrderStatus.DELIVERED));
+        assertEquals(2, store.lineTotals(from, to).units());
+        assertEquals(0, store.orderTotals(to + 1, Long.MAX_VALUE).totalCount());
+    }
+
+    @Test
+    void statusChangesMoveOrdersAndDropCancelledLines() {
+        load(List.of(
+                line(1L, Order.OrderStatus.PENDING, 12.0, MONDAY, 3, 12.0),
+                line(2L, Order.OrderStatus.PENDING, 5.0, MONDAY, 1, 5.0)));
+
+        // Outside a transaction the change applies at once
+        store.statusChangedAfterCommit(1L, Order.OrderStatus.CANCELLED);
+        store.statusChangedAfterCommit(99L, Order.OrderStatus.DELIVERED);
+
+        OrderFactStore.OrderTotals totals = store.orderTotals(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(2, totals.totalCount());
+        assertEquals(1, totals.count(Order.OrderStatus.CANCELLED));
+        assertEquals(12.0, totals.amount(Order.OrderStatus.CANCELLED));
+        assertEquals(1, totals.count(Order.OrderStatus.PENDING));
+        assertEquals(1, store.lineTotals(Long.MIN_VALUE, Long.MAX_VALUE).units());
+    }
+
+    @Test
+    void appendsNewOrdersOnceEvenIfTheLoadSeesThemToo() {
+        load(List.of());
+
+        Order order = order(7L, MONDAY, 2, 3);
+        store.appendAfterCommit(order);
+        store.appendAfterCommit(order);
+        // A load that races with the commit reads the same order back from the database
+        load(List.of(
+                line(7L, Order.OrderStatus.PENDING, 25.0, MONDAY, 2, 10.0),
+                line(7L, Order.OrderStatus.PENDING, 25.0, MONDAY, 3, 15.0)));
+
+        assertEquals(1, store.orderTotals(Long.MIN_VALUE, Long.MAX_VALUE).totalCount());
+        assertEquals(25.0, store.orderTotals(Long.MIN_VALUE, Long.MAX_VALUE).amount(Order.OrderStatus.PENDING));
+        assertEquals(5, store.lineTotals(Long.MIN_VALUE, Long.MAX_VALUE).units());
+        assertEquals(25.0, store.lineTotals(Long.MIN_VALUE, Long.MAX_VALUE).revenue());
+    }
+
+    @Test
+    void spansManySegments() {
+        // Well past one 4096-row segment and the initial size of the id index
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            Order.OrderStatus status = id % 10 == 0 ? Order.OrderStatus.CANCELLED : Order.OrderStatus.DELIVERED;
+            rows.add(line(id, status, 2.0, MONDAY.plusMinutes(id), 1, 1.0));
+            rows.add(line(id, status, 2.0, MONDAY.plusMinutes(id), 1, 1.0));
+        }
+        load(rows);
+
+        OrderFactStore.OrderTotals totals = store.orderTotals(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(9_000, totals.count(Order.OrderStatus.DELIVERED));
+        assertEquals(1_000, totals.count(Order.OrderStatus.CANCELLED));
+        assertEquals(18_000, store.lineTotals(Long.MIN_VALUE, Long.MAX_VALUE).units());
+
+        store.statusChangedAfterCommit(9_999L, Order.OrderStatus.CANCELLED);
+        assertEquals(17_998, store.lineTotals(Long.MIN_VALUE, Long.MAX_VALUE).units());
+
+        long from = OrderFactStore.toMillis(MONDAY.plusMinutes(5_001));
+        assertEquals(5_000, store.orderTotals(from, Long.MAX_VALUE).totalCount());
+    }
+
+    private void load(List<Object[]> rows) {
+        when(orderRepository.streamFactLines()).thenReturn(rows.stream());
+        store.load();
+    }
+
+    private static Object[] line(Long orderId, Order.OrderStatus status, Double total, LocalDateTime createdAt,
+                                 Integer quantity, Double subtotal) {
+        return new Object[]{orderId, status, total, createdAt, quantity, subtotal};
+    }
+
+    private static Order order(Long id, LocalDateTime createdAt, int... quantities) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setCreatedAt(createdAt);
+        double total = 0;
+        for (int quantity : quantities) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setQuantity(quantity);
+            item.setSubtotal(quantity * 5.0);
+            order.getItems().add(item);
+            total += item.getSubtotal();
+        }
+        order.setTotalAmount(total);
+        return order;
+    }
+}
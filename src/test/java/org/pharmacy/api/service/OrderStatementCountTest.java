@@ -0,0 +1,208 @@
+package org.pharmacy.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pharmacy.api.dto.OrderItemRequest;
+import org.pharmacy.api.dto.OrderRequest;
+import org.pharmacy.api.dto.PaymentRequest;
+import org.pharmacy.api.dto.PaymentVerificationRequest;
+import org.pharmacy.api.model.Order;
+import org.pharmacy.api.model.OrderItem;
+import org.pharmacy.api.model.Payment;
+import org.pharmacy.api.model.Product;
+import org.pharmacy.api.repository.ProductRepository;
+import org.pharmacy.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the JDBC statements behind the order and payment paths. Each path has to cost the same
+ * for a one-line order as for a five-line one (no query per line or per order) and stay within a
+ * fixed budget. Responses are serialized after the transaction closes, as the controllers do, so a
+ * lazy association the service forgot to fetch fails here instead of in production.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        // Statistics are global: keep scheduled jobs from issuing statements while a path is measured
+        "inventory.flush-interval-ms=3600000",
+        "inventory.reconcile-interval-ms=3600000",
+        "reports.rollup.flush-interval-ms=3600000",
+        "search.suggest.rebuild-interval-ms=3600000",
+        "metrics.reconcile-interval-ms=3600000"
+})
+class OrderStatementCountTest {
+
+    private static final int LIST_BUDGET = 1;
+    private static final int DETAIL_BUDGET = 2;
+    private static final int CANCEL_BUDGET = 6;
+    private static final int INITIATE_BUDGET = 5;
+    private static final int VERIFY_BUDGET = 8;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+    private Long customerId;
+    private List<Long> productIds;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        customerId = userRepository.findByEmail("customer@example.com").orElseThrow().getId();
+        productIds = productRepository.findAll().stream()
+                .filter(product -> !product.getPrescriptionRequired())
+                .map(Product::getId)
+                .limit(5)
+                .toList();
+        assertEquals(5, productIds.size());
+    }
+
+    @Test
+    void orderListCostsOneStatementWhateverThePageHolds() {
+        placeOrder(1);
+        placeOrder(1);
+        long fewOrders = statements(() -> orderService.getOrders(null, 20));
+
+        for (int i = 0; i < 10; i++) {
+            placeOrder(3);
+        }
+        long manyOrders = statements(() -> orderService.getOrders(null, 20));
+
+        assertEquals(fewOrders, manyOrders);
+        assertWithin(LIST_BUDGET, manyOrders);
+    }
+
+    @Test
+    void orderDetailFetchesLinesAndProductsWithTheOrder() {
+        Long small = placeOrder(1);
+        Long large = placeOrder(5);
+
+        long smallStatements = statements(() -> orderService.getOrderById(small));
+        Order[] loaded = new Order[1];
+        long largeStatements = statements(() -> loaded[0] = orderService.getOrderById(large));
+
+        assertEquals(smallStatements, largeStatements);
+        assertWithin(DETAIL_BUDGET, largeStatements);
+        assertTrue(Hibernate.isInitialized(loaded[0].getItems()));
+        for (OrderItem item : loaded[0].getItems()) {
+            assertTrue(Hibernate.isInitialized(item.getProduct()));
+        }
+    }
+
+    @Test
+    void cancelCostsTheSameForAnyNumberOfLines() {
+        Long small = placeOrder(1);
+        Long large = placeOrder(5);
+
+        long smallStatements = statements(() -> orderService.cancelOrder(small));
+        long largeStatements = statements(() -> orderService.cancelOrder(large));
+
+        assertEquals(smallStatements, largeStatements);
+        assertWithin(CANCEL_BUDGET, largeStatements);
+    }
+
+    @Test
+    void initiatePaymentCostsTheSameForAnyNumberOfLines() {
+        Long small = placeOrder(1);
+        Long large = placeOrder(5);
+
+        long smallStatements = statements(() -> serialize(paymentService.initiatePayment(paymentFor(small))));
+        long largeStatements = statements(() -> serialize(paymentService.initiatePayment(paymentFor(large))));
+
+        assertEquals(smallStatements, largeStatements);
+        assertWithin(INITIATE_BUDGET, largeStatements);
+    }
+
+    @Test
+    void verifyPaymentCostsTheSameForAnyNumberOfLines() {
+        Long small = paymentService.initiatePayment(paymentFor(placeOrder(1))).getId();
+        Long large = paymentService.initiatePayment(paymentFor(placeOrder(5))).getId();
+
+        long smallStatements = statements(() -> serialize(paymentService.verifyPayment(verificationOf(small))));
+        long largeStatements = statements(() -> serialize(paymentService.verifyPayment(verificationOf(large))));
+
+        assertEquals(smallStatements, largeStatements);
+        assertWithin(VERIFY_BUDGET, largeStatements);
+    }
+
+    private long statements(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Long placeOrder(int lines) {
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (Long productId : productIds.subList(0, lines)) {
+            OrderItemRequest item = new OrderItemRequest();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        OrderRequest request = new OrderRequest();
+        request.setUserId(customerId);
+        request.setItems(items);
+        request.setShippingAddress("789 Customer Rd");
+        request.setPaymentMethod("CARD");
+        return orderService.createOrder(request).getId();
+    }
+
+    private PaymentRequest paymentFor(Long orderId) {
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(orderId);
+        request.setUserId(customerId);
+        request.setCardNumber("4111 1111 1111 1111");
+        request.setCardHolderName("Jane Customer");
+        request.setExpiryMonth("12");
+        request.setExpiryYear(String.valueOf(LocalDate.now().getYear() + 1));
+        request.setCvv("123");
+        return request;
+    }
+
+    private static PaymentVerificationRequest verificationOf(Long paymentId) {
+        PaymentVerificationRequest request = new PaymentVerificationRequest();
+        request.setPaymentId(paymentId);
+        return request;
+    }
+
+    private void serialize(Payment payment) {
+        try {
+            objectMapper.writeValueAsString(payment);
+        } catch (JsonProcessingException e) {
+            throw new AssertionError("Payment response could not be serialized", e);
+        }
+    }
+
+    private static void assertWithin(int budget, long statements) {
+        assertTrue(statements <= budget, statements + " statements, budget is " + budget);
+    }
+}
@@ -0,0 +1,149 @@
+package org.pharmacy.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.pharmacy.api.dto.ProductSuggestion;
+import org.pharmacy.api.model.Product;
+import org.pharmacy.api.repository.OrderItemRepository;
+import org.pharmacy.api.repository.ProductRepository;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSuggesterTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+
+    @Test
+    void completesPrefixes() {
+        ProductSuggester suggester = load(List.of(product(1L, "Paracetamol 500mg", "Panadol")), List.of());
+
+        assertEquals(List.of("Paracetamol 500mg"), texts(suggester.suggest("parac", 10)));
+        // The exact prefix first, then "para" one substitution away
+        assertEquals(List.of("Panadol", "Paracetamol 500mg"), texts(suggester.suggest("pana", 10)));
+    }
+
+    @Test
+    void toleratesOneTypoInThreeToFiveCharacters() {
+        ProductSuggester suggester = load(List.of(product(1L, "Ibuprofen", "Advil")), List.of());
+
+        assertEquals(List.of("Ibuprofen"), texts(suggester.suggest("ibup", 10)));
+        assertEquals(List.of("Ibuprofen"), texts(suggester.suggest("ibip", 10)));
+        assertEquals(List.of(), texts(suggester.suggest("ibiq", 10)));
+    }
+
+    @Test
+    void toleratesTwoTyposFromSixCharacters() {
+        ProductSuggester suggester = load(List.of(product(1L, "Ibuprofen", "Advil")), List.of());
+
+        assertEquals(List.of("Ibuprofen"), texts(suggester.suggest("ibiprifen", 10)));
+        assertEquals(List.of(), texts(suggester.suggest("ibiprifan", 10)));
+    }
+
+    @Test
+    void countsAnAdjacentTranspositionAsOneEdit() {
+        ProductSuggester suggester = load(List.of(product(1L, "Aspirin", "Bayer")), List.of());
+
+        // Two substitutions apart, but one transposition
+        assertEquals(List.of("Aspirin"), texts(suggester.suggest("apsi", 10)));
+    }
+
+    @Test
+    void neverCorrectsTheFirstLetter() {
+        ProductSuggester suggester = load(List.of(product(1L, "Aspirin", "Bayer")), List.of());
+
+        // One deletion away from "aspirin", but the first letter differs
+        assertEquals(List.of(), texts(suggester.suggest("spirin", 10)));
+        assertEquals(List.of(), texts(suggester.suggest("bspi", 10)));
+    }
+
+    @Test
+    void doesNotCorrectQueriesShorterThanThreeCharacters() {
+        ProductSuggester suggester = load(List.of(product(1L, "Aspirin", "Bayer")), List.of());
+
+        assertEquals(List.of("Aspirin"), texts(suggester.suggest("as", 10)));
+        assertEquals(List.of(), texts(suggester.suggest("ap", 10)));
+    }
+
+    @Test
+    void ranksCloserMatchesFirstThenByUnitsOrdered() {
+        List<Product> products = List.of(
+                product(1L, "Vitamin C", "Nature"),
+                product(2L, "Vitamin D", "Nature"),
+                product(3L, "Vitamix", "Nature"));
+        List<Object[]> sold = List.of(new Object[]{1L, 5L}, new Object[]{2L, 50L}, new Object[]{3L, 500L});
+        ProductSuggester suggester = load(products, sold);
+
+        assertEquals(List.of("Vitamix", "Vitamin D", "Vitamin C"), texts(suggester.suggest("vitam", 10)));
+        // "vitamin" matches two names exactly and "vitamix" with one edit
+        assertEquals(List.of("Vitamin D", "Vitamin C", "Vitamix"), texts(suggester.suggest("vitamin", 10)));
+    }
+
+    @Test
+    void fillsThePageFromPrecomputedBlocksOnLargeCatalogs() {
+        List<Product> products = new ArrayList<>();
+        List<Object[]> sold = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            products.add(product(id, "Cream " + id, "Brand " + id));
+            sold.add(new Object[]{id, id});
+        }
+        ProductSuggester suggester = load(products, sold);
+
+        List<ProductSuggestion> suggestions = suggester.suggest("cream", 5);
+        assertEquals(List.of("Cream 200", "Cream 199", "Cream 198", "Cream 197", "Cream 196"), texts(suggestions));
+        assertEquals(ProductSuggester.MAX_SUGGESTIONS, suggester.suggest("cream", 50).size());
+    }
+
+    @Test
+    void suggestsBrandsWithoutAProductId() {
+        ProductSuggester suggester = load(List.of(product(7L, "Ibuprofen", "Nurofen")), List.of());
+
+        List<ProductSuggestion> suggestions = suggester.suggest("nuro", 10);
+        assertEquals(1, suggestions.size());
+        assertEquals("BRAND", suggestions.get(0).getType());
+        assertNull(suggestions.get(0).getProductId());
+
+        ProductSuggestion product = suggester.suggest("ibu", 10).get(0);
+        assertEquals("PRODUCT", product.getType());
+        assertEquals(7L, product.getProductId());
+    }
+
+    @Test
+    void returnsNothingForBlankQueriesOrAnEmptyCatalog() {
+        ProductSuggester empty = load(List.of(), List.of());
+        assertTrue(empty.suggest("para", 10).isEmpty());
+
+        ProductSuggester suggester = load(List.of(product(1L, "Paracetamol", "Panadol")), List.of());
+        assertTrue(suggester.suggest("  ", 10).isEmpty());
+        assertTrue(suggester.suggest("para", 0).isEmpty());
+    }
+
+    private ProductSuggester load(List<Product> products, List<Object[]> sold) {
+        when(productRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(products));
+        when(orderItemRepository.sumQuantityByProduct()).thenReturn(sold);
+        ProductSuggester suggester = new ProductSuggester(productRepository, orderItemRepository);
+        suggester.load();
+        return suggester;
+    }
+
+    private static Product product(Long id, String name, String brand) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        return product;
+    }
+
+    private static List<String> texts(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getText).toList();
+    }
+}
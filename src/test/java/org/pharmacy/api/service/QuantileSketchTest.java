@@ -0,0 +1,144 @@
+package org.pharmacy.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1};
+
+    @Test
+    void staysWithinOnePercentOfTheExactQuantile() {
+        Random random = new Random(3);
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal, spanning several orders of magnitude like order totals and latencies
+            values[i] = Math.exp(3 + 2 * random.nextGaussian());
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, sketch.count());
+        for (double q : QUANTILES) {
+            double exact = values[(int) Math.floor(q * (values.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertEquals(exact, estimate, exact * QuantileSketch.RELATIVE_ACCURACY + 1e-9, "q=" + q);
+        }
+    }
+
+    @Test
+    void neverReportsOutsideTheRecordedRange() {
+        QuantileSketch single = new QuantileSketch();
+        single.add(910.11);
+        for (double q : QUANTILES) {
+            assertEquals(910.11, single.quantile(q), "q=" + q);
+        }
+
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(12.34);
+        sketch.add(56.78);
+        sketch.add(910.11);
+        assertTrue(sketch.quantile(0) >= 12.34);
+        assertTrue(sketch.quantile(1) <= 910.11);
+        assertEquals(910.11, sketch.quantile(1), 910.11 * QuantileSketch.RELATIVE_ACCURACY);
+    }
+
+    @Test
+    void mergeIsTheSketchOfTheUnion() {
+        Random random = new Random(4);
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        QuantileSketch union = new QuantileSketch();
+        for (int i = 0; i < 10_000; i++) {
+            double value = random.nextDouble() * 500;
+            (i % 3 == 0 ? left : right).add(value);
+            union.add(value);
+        }
+
+        left.merge(right);
+
+        assertEquals(union.count(), left.count());
+        assertArrayEquals(union.toBytes(), left.toBytes());
+        for (double q : QUANTILES) {
+            assertEquals(union.quantile(q), left.quantile(q), "q=" + q);
+        }
+    }
+
+    @Test
+    void survivesABinaryRoundTrip() {
+        Random random = new Random(5);
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(0);
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add(random.nextDouble() * 10_000);
+        }
+
+        QuantileSketch decoded = QuantileSketch.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch.count(), decoded.count());
+        assertArrayEquals(sketch.toBytes(), decoded.toBytes());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), decoded.quantile(q), "q=" + q);
+        }
+    }
+
+    @Test
+    void rejectsCorruptOrIncompatibleInput() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(42);
+        byte[] encoded = sketch.toBytes();
+
+        assertThrows(RuntimeException.class, () -> QuantileSketch.fromBytes(new byte[0]));
+        assertThrows(RuntimeException.class, () -> QuantileSketch.fromBytes(Arrays.copyOf(encoded, encoded.length - 3)));
+
+        byte[] otherVersion = encoded.clone();
+        otherVersion[0]++;
+        assertThrows(RuntimeException.class, () -> QuantileSketch.fromBytes(otherVersion));
+
+        // The only bucket index follows the 33-byte header and the count of buckets
+        byte[] badBucket = encoded.clone();
+        badBucket[37] = (byte) 0xFF;
+        badBucket[38] = (byte) 0xFF;
+        assertThrows(RuntimeException.class, () -> QuantileSketch.fromBytes(badBucket));
+    }
+
+    @Test
+    void countsTinyValuesAsZeroAndIgnoresNegativesAndNaN() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertEquals(0, sketch.quantile(0.5));
+
+        sketch.add(-5);
+        sketch.add(Double.NaN);
+        assertEquals(0, sketch.count());
+
+        sketch.add(0);
+        sketch.add(QuantileSketch.MIN_VALUE / 2);
+        sketch.add(100);
+        assertEquals(3, sketch.count());
+        assertEquals(0, sketch.quantile(0));
+        assertEquals(0, sketch.quantile(0.5));
+        assertEquals(100, sketch.quantile(1), 100 * QuantileSketch.RELATIVE_ACCURACY);
+
+        // Values just above the threshold share its bucket rather than falling below the lowest one
+        QuantileSketch boundary = new QuantileSketch();
+        boundary.add(QuantileSketch.MIN_VALUE);
+        boundary.add(Math.nextUp(QuantileSketch.MIN_VALUE));
+        boundary.add(0.01003);
+        boundary.add(0.01005);
+        assertEquals(4, boundary.count());
+
+        assertEquals(QuantileSketch.MIN_VALUE, boundary.quantile(0));
+        assertEquals(QuantileSketch.MIN_VALUE, boundary.quantile(0.5),
+                QuantileSketch.MIN_VALUE * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(0.01005, boundary.quantile(1), 0.01005 * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(boundary.quantile(0.5), QuantileSketch.fromBytes(boundary.toBytes()).quantile(0.5));
+    }
+}